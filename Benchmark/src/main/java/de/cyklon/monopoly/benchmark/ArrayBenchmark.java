@@ -0,0 +1,185 @@
+package de.cyklon.monopoly.benchmark;
+
+import de.cyklon.monopoly.protocol.io.BitBuffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode throughput of the {@code putAssigned}/{@code getAssigned*} array accessors
+ * of {@link BitBuffer}, for arrays of {@link #size} elements starting at bit {@link #offset}.
+ * {@code 40} is the size of the board, {@code 0} measures byte aligned and {@code 3} unaligned access.
+ * Run with {@code -prof gc} to see the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArrayBenchmark {
+
+	@Param({"8", "40", "1024"})
+	public int size;
+
+	@Param({"0", "3"})
+	public int offset;
+
+	private boolean[] booleanArray;
+	private byte[] byteArray;
+	private char[] charArray;
+	private short[] shortArray;
+	private int[] intArray;
+	private long[] longArray;
+	private float[] floatArray;
+	private double[] doubleArray;
+
+	private BitBuffer writer;
+	private BitBuffer booleans, bytes, chars, shorts, ints, longs, floats, doubles;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		booleanArray = new boolean[size];
+		byteArray = new byte[size];
+		charArray = new char[size];
+		shortArray = new short[size];
+		intArray = new int[size];
+		longArray = new long[size];
+		floatArray = new float[size];
+		doubleArray = new double[size];
+		random.nextBytes(byteArray);
+		for (int i = 0; i < size; i++) {
+			booleanArray[i] = random.nextBoolean();
+			charArray[i] = (char) random.nextInt();
+			shortArray[i] = (short) random.nextInt();
+			intArray[i] = random.nextInt();
+			longArray[i] = random.nextLong();
+			floatArray[i] = random.nextFloat();
+			doubleArray[i] = random.nextDouble();
+		}
+
+		writer = allocate();
+		(booleans = allocate()).putAssigned(booleanArray);
+		(bytes = allocate()).putAssigned(byteArray);
+		(chars = allocate()).putAssigned(charArray);
+		(shorts = allocate()).putAssigned(shortArray);
+		(ints = allocate()).putAssigned(intArray);
+		(longs = allocate()).putAssigned(longArray);
+		(floats = allocate()).putAssigned(floatArray);
+		(doubles = allocate()).putAssigned(doubleArray);
+	}
+
+	private BitBuffer allocate() {
+		BitBuffer buffer = BitBuffer.allocate(offset + Integer.SIZE + size * Long.SIZE);
+		buffer.position(offset);
+		return buffer;
+	}
+
+	private BitBuffer writer() {
+		writer.position(offset);
+		return writer;
+	}
+
+	private BitBuffer reader(BitBuffer buffer) {
+		buffer.position(offset);
+		return buffer;
+	}
+
+	@Benchmark
+	public BitBuffer putBooleans() {
+		BitBuffer b = writer();
+		b.putAssigned(booleanArray);
+		return b;
+	}
+
+	@Benchmark
+	public BitBuffer putBytes() {
+		BitBuffer b = writer();
+		b.putAssigned(byteArray);
+		return b;
+	}
+
+	@Benchmark
+	public BitBuffer putChars() {
+		BitBuffer b = writer();
+		b.putAssigned(charArray);
+		return b;
+	}
+
+	@Benchmark
+	public BitBuffer putShorts() {
+		BitBuffer b = writer();
+		b.putAssigned(shortArray);
+		return b;
+	}
+
+	@Benchmark
+	public BitBuffer putInts() {
+		BitBuffer b = writer();
+		b.putAssigned(intArray);
+		return b;
+	}
+
+	@Benchmark
+	public BitBuffer putLongs() {
+		BitBuffer b = writer();
+		b.putAssigned(longArray);
+		return b;
+	}
+
+	@Benchmark
+	public BitBuffer putFloats() {
+		BitBuffer b = writer();
+		b.putAssigned(floatArray);
+		return b;
+	}
+
+	@Benchmark
+	public BitBuffer putDoubles() {
+		BitBuffer b = writer();
+		b.putAssigned(doubleArray);
+		return b;
+	}
+
+	@Benchmark
+	public boolean[] getBooleans() {
+		return reader(booleans).getAssigned();
+	}
+
+	@Benchmark
+	public byte[] getBytes() {
+		return reader(bytes).getAssignedBytes();
+	}
+
+	@Benchmark
+	public char[] getChars() {
+		return reader(chars).getAssignedChars();
+	}
+
+	@Benchmark
+	public short[] getShorts() {
+		return reader(shorts).getAssignedShorts();
+	}
+
+	@Benchmark
+	public int[] getInts() {
+		return reader(ints).getAssignedInts();
+	}
+
+	@Benchmark
+	public long[] getLongs() {
+		return reader(longs).getAssignedLongs();
+	}
+
+	@Benchmark
+	public float[] getFloats() {
+		return reader(floats).getAssignedFloats();
+	}
+
+	@Benchmark
+	public double[] getDoubles() {
+		return reader(doubles).getAssignedDoubles();
+	}
+}
@@ -0,0 +1,137 @@
+package de.cyklon.monopoly.benchmark;
+
+import de.cyklon.monopoly.protocol.Packet;
+import de.cyklon.monopoly.protocol.PacketRegistry;
+import de.cyklon.monopoly.protocol.io.BitBuffer;
+import de.cyklon.monopoly.protocol.io.BitBufferPool;
+import de.cyklon.monopoly.protocol.packet.PacketCreateGame;
+import de.cyklon.monopoly.protocol.packet.PacketJoinGame;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.InvalidClassException;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of whole packets: {@link Packet#getBytes()}, {@link Packet#writeTo(BitBuffer)}
+ * into a pooled buffer, {@link Packet#read(ByteBuffer)} and full round trips.
+ * Pooled writes, reads from a bit buffer and round trips start at bit {@link #offset},
+ * so {@code 0} measures byte aligned and {@code 3} unaligned packets.
+ * {@code getBytes} and {@code readBytes} always start at bit zero.
+ * Run with {@code -prof gc} to see the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketBenchmark {
+
+	@Param({"0", "3"})
+	public int offset;
+
+	private final BitBufferPool pool = new BitBufferPool(1, 256 * Byte.SIZE, 64 * 1024 * Byte.SIZE);
+
+	private final Packet createGame = new PacketCreateGame("Spieler 1", 4, false);
+	private final Packet joinGame = new PacketJoinGame(UUID.randomUUID(), "Spieler 2");
+
+	private ByteBuffer createGameBytes;
+	private ByteBuffer joinGameBytes;
+	private BitBuffer createGameBits;
+	private BitBuffer joinGameBits;
+
+	@Setup
+	public void setup() {
+		createGameBytes = ByteBuffer.wrap(createGame.getBytes());
+		joinGameBytes = ByteBuffer.wrap(joinGame.getBytes());
+		createGameBits = encode(createGame);
+		joinGameBits = encode(joinGame);
+	}
+
+	private BitBuffer encode(Packet packet) {
+		BitBuffer buffer = BitBuffer.growable(256 * Byte.SIZE);
+		buffer.position(offset);
+		packet.writeTo(buffer);
+		return buffer;
+	}
+
+	private Packet read(BitBuffer buffer) throws InvalidClassException {
+		buffer.position(offset);
+		buffer.lengthPrefix(Packet.LENGTH_PREFIX);
+		return PacketRegistry.getDefault().read(buffer);
+	}
+
+	private int writePooled(Packet packet) {
+		BitBuffer buffer = pool.acquire();
+		try {
+			buffer.position(offset);
+			packet.writeTo(buffer);
+			return buffer.position();
+		} finally {
+			pool.release(buffer);
+		}
+	}
+
+	private Packet roundTrip(Packet packet) throws InvalidClassException {
+		BitBuffer buffer = pool.acquire();
+		try {
+			buffer.position(offset);
+			packet.writeTo(buffer);
+			return read(buffer);
+		} finally {
+			pool.release(buffer);
+		}
+	}
+
+	@Benchmark
+	public byte[] createGameGetBytes() {
+		return createGame.getBytes();
+	}
+
+	@Benchmark
+	public int createGameWritePooled() {
+		return writePooled(createGame);
+	}
+
+	@Benchmark
+	public Packet createGameReadBytes() throws InvalidClassException {
+		return Packet.read(createGameBytes);
+	}
+
+	@Benchmark
+	public Packet createGameRead() throws InvalidClassException {
+		return read(createGameBits);
+	}
+
+	@Benchmark
+	public Packet createGameRoundTrip() throws InvalidClassException {
+		return roundTrip(createGame);
+	}
+
+	@Benchmark
+	public byte[] joinGameGetBytes() {
+		return joinGame.getBytes();
+	}
+
+	@Benchmark
+	public int joinGameWritePooled() {
+		return writePooled(joinGame);
+	}
+
+	@Benchmark
+	public Packet joinGameReadBytes() throws InvalidClassException {
+		return Packet.read(joinGameBytes);
+	}
+
+	@Benchmark
+	public Packet joinGameRead() throws InvalidClassException {
+		return read(joinGameBits);
+	}
+
+	@Benchmark
+	public Packet joinGameRoundTrip() throws InvalidClassException {
+		return roundTrip(joinGame);
+	}
+}
@@ -0,0 +1,276 @@
+package de.cyklon.monopoly.benchmark;
+
+import de.cyklon.monopoly.protocol.io.BitBuffer;
+import de.cyklon.monopoly.protocol.io.Range;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Encode and decode throughput of the single value accessors of {@link BitBuffer}.
+ * Every invocation writes or reads {@value #COUNT} values, starting at bit {@link #offset},
+ * so {@code 0} measures byte aligned and {@code 3} unaligned access.
+ * Run with {@code -prof gc} to see the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(PrimitiveBenchmark.COUNT)
+public class PrimitiveBenchmark {
+
+	static final int COUNT = 64;
+
+	private static final Range FIELD = Range.of(0, 39);
+
+	@Param({"0", "3"})
+	public int offset;
+
+	private final long[] values = new long[COUNT];
+
+	private BitBuffer writer;
+
+	private BitBuffer bits, bytes, chars, shorts, ints, longs, floats, doubles, varNumbers, varInts, zigZags, gammas, ranged;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		for (int i = 0; i < COUNT; i++) values[i] = random.nextLong();
+
+		writer = BitBuffer.allocate(offset + COUNT * 2 * Long.SIZE);
+
+		bits = encode(b -> {for (long v : values) b.put((v & 1) != 0);});
+		bytes = encode(b -> {for (long v : values) b.putByte((byte) v);});
+		chars = encode(b -> {for (long v : values) b.putChar((char) v);});
+		shorts = encode(b -> {for (long v : values) b.putShort((short) v);});
+		ints = encode(b -> {for (long v : values) b.putInt((int) v);});
+		longs = encode(b -> {for (long v : values) b.putLong(v);});
+		floats = encode(b -> {for (long v : values) b.putFloat((float) v);});
+		doubles = encode(b -> {for (long v : values) b.putDouble((double) v);});
+		varNumbers = encode(b -> {for (long v : values) b.putVarNumber(v & 0x1FFF, 13, false);});
+		varInts = encode(b -> {for (long v : values) b.putVarInt((int) v & 0xFFF);});
+		zigZags = encode(b -> {for (long v : values) b.putZigZagInt((int) v % 1000);});
+		gammas = encode(b -> {for (long v : values) b.putGamma((v & 0xFF) + 1);});
+		ranged = encode(b -> {for (long v : values) b.putRanged(FIELD, Math.floorMod(v, 40));});
+	}
+
+	private BitBuffer encode(Consumer<BitBuffer> encoder) {
+		BitBuffer buffer = BitBuffer.allocate(offset + COUNT * 2 * Long.SIZE);
+		buffer.position(offset);
+		encoder.accept(buffer);
+		return buffer;
+	}
+
+	private BitBuffer writer() {
+		writer.position(offset);
+		return writer;
+	}
+
+	private BitBuffer reader(BitBuffer buffer) {
+		buffer.position(offset);
+		return buffer;
+	}
+
+	//Encode
+
+	@Benchmark
+	public BitBuffer putBit() {
+		BitBuffer b = writer();
+		for (long v : values) b.put((v & 1) != 0);
+		return b;
+	}
+
+	@Benchmark
+	public BitBuffer putByte() {
+		BitBuffer b = writer();
+		for (long v : values) b.putByte((byte) v);
+		return b;
+	}
+
+	@Benchmark
+	public BitBuffer putChar() {
+		BitBuffer b = writer();
+		for (long v : values) b.putChar((char) v);
+		return b;
+	}
+
+	@Benchmark
+	public BitBuffer putShort() {
+		BitBuffer b = writer();
+		for (long v : values) b.putShort((short) v);
+		return b;
+	}
+
+	@Benchmark
+	public BitBuffer putInt() {
+		BitBuffer b = writer();
+		for (long v : values) b.putInt((int) v);
+		return b;
+	}
+
+	@Benchmark
+	public BitBuffer putLong() {
+		BitBuffer b = writer();
+		for (long v : values) b.putLong(v);
+		return b;
+	}
+
+	@Benchmark
+	public BitBuffer putFloat() {
+		BitBuffer b = writer();
+		for (long v : values) b.putFloat((float) v);
+		return b;
+	}
+
+	@Benchmark
+	public BitBuffer putDouble() {
+		BitBuffer b = writer();
+		for (long v : values) b.putDouble((double) v);
+		return b;
+	}
+
+	@Benchmark
+	public BitBuffer putVarNumber() {
+		BitBuffer b = writer();
+		for (long v : values) b.putVarNumber(v & 0x1FFF, 13, false);
+		return b;
+	}
+
+	@Benchmark
+	public BitBuffer putVarInt() {
+		BitBuffer b = writer();
+		for (long v : values) b.putVarInt((int) v & 0xFFF);
+		return b;
+	}
+
+	@Benchmark
+	public BitBuffer putZigZagInt() {
+		BitBuffer b = writer();
+		for (long v : values) b.putZigZagInt((int) v % 1000);
+		return b;
+	}
+
+	@Benchmark
+	public BitBuffer putGamma() {
+		BitBuffer b = writer();
+		for (long v : values) b.putGamma((v & 0xFF) + 1);
+		return b;
+	}
+
+	@Benchmark
+	public BitBuffer putRanged() {
+		BitBuffer b = writer();
+		for (long v : values) b.putRanged(FIELD, Math.floorMod(v, 40));
+		return b;
+	}
+
+	//Decode
+
+	@Benchmark
+	public long getBit() {
+		BitBuffer b = reader(bits);
+		long sum = 0;
+		for (int i = 0; i < COUNT; i++) if (b.get()) sum++;
+		return sum;
+	}
+
+	@Benchmark
+	public long getByte() {
+		BitBuffer b = reader(bytes);
+		long sum = 0;
+		for (int i = 0; i < COUNT; i++) sum += b.getByte();
+		return sum;
+	}
+
+	@Benchmark
+	public long getChar() {
+		BitBuffer b = reader(chars);
+		long sum = 0;
+		for (int i = 0; i < COUNT; i++) sum += b.getChar();
+		return sum;
+	}
+
+	@Benchmark
+	public long getShort() {
+		BitBuffer b = reader(shorts);
+		long sum = 0;
+		for (int i = 0; i < COUNT; i++) sum += b.getShort();
+		return sum;
+	}
+
+	@Benchmark
+	public long getInt() {
+		BitBuffer b = reader(ints);
+		long sum = 0;
+		for (int i = 0; i < COUNT; i++) sum += b.getInt();
+		return sum;
+	}
+
+	@Benchmark
+	public long getLong() {
+		BitBuffer b = reader(longs);
+		long sum = 0;
+		for (int i = 0; i < COUNT; i++) sum += b.getLong();
+		return sum;
+	}
+
+	@Benchmark
+	public double getFloat() {
+		BitBuffer b = reader(floats);
+		double sum = 0;
+		for (int i = 0; i < COUNT; i++) sum += b.getFloat();
+		return sum;
+	}
+
+	@Benchmark
+	public double getDouble() {
+		BitBuffer b = reader(doubles);
+		double sum = 0;
+		for (int i = 0; i < COUNT; i++) sum += b.getDouble();
+		return sum;
+	}
+
+	@Benchmark
+	public long getVarNumber() {
+		BitBuffer b = reader(varNumbers);
+		long sum = 0;
+		for (int i = 0; i < COUNT; i++) sum += b.getVarNumber(13, false);
+		return sum;
+	}
+
+	@Benchmark
+	public long getVarInt() {
+		BitBuffer b = reader(varInts);
+		long sum = 0;
+		for (int i = 0; i < COUNT; i++) sum += b.getVarInt();
+		return sum;
+	}
+
+	@Benchmark
+	public long getZigZagInt() {
+		BitBuffer b = reader(zigZags);
+		long sum = 0;
+		for (int i = 0; i < COUNT; i++) sum += b.getZigZagInt();
+		return sum;
+	}
+
+	@Benchmark
+	public long getGamma() {
+		BitBuffer b = reader(gammas);
+		long sum = 0;
+		for (int i = 0; i < COUNT; i++) sum += b.getGamma();
+		return sum;
+	}
+
+	@Benchmark
+	public long getRanged() {
+		BitBuffer b = reader(ranged);
+		long sum = 0;
+		for (int i = 0; i < COUNT; i++) sum += b.getRanged(FIELD);
+		return sum;
+	}
+}
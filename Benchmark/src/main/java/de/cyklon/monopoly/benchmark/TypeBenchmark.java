@@ -0,0 +1,75 @@
+package de.cyklon.monopoly.benchmark;
+
+import de.cyklon.monopoly.protocol.io.BitBuffer;
+import de.cyklon.monopoly.protocol.io.LengthPrefix;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode throughput of UUIDs and strings, starting at bit {@link #offset},
+ * with every {@link LengthPrefix} in front of the strings.
+ * Run with {@code -prof gc} to see the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TypeBenchmark {
+
+	@Param({"0", "3"})
+	public int offset;
+
+	@Param
+	public LengthPrefix lengthPrefix;
+
+	@Param({"Spieler 1", "Ein deutlich längerer Spielername mit Umlauten äöü"})
+	public String string;
+
+	private final UUID uuid = UUID.randomUUID();
+
+	private BitBuffer writer;
+	private BitBuffer uuids, strings;
+
+	@Setup
+	public void setup() {
+		writer = allocate();
+		(uuids = allocate()).putUUID(uuid);
+		(strings = allocate()).putString(string);
+	}
+
+	private BitBuffer allocate() {
+		BitBuffer buffer = BitBuffer.allocate(offset + 1024 * Byte.SIZE).lengthPrefix(lengthPrefix);
+		buffer.position(offset);
+		return buffer;
+	}
+
+	@Benchmark
+	public BitBuffer putUUID() {
+		writer.position(offset);
+		writer.putUUID(uuid);
+		return writer;
+	}
+
+	@Benchmark
+	public UUID getUUID() {
+		uuids.position(offset);
+		return uuids.getUUID();
+	}
+
+	@Benchmark
+	public BitBuffer putString() {
+		writer.position(offset);
+		writer.putString(string);
+		return writer;
+	}
+
+	@Benchmark
+	public String getString() {
+		strings.position(offset);
+		return strings.getString();
+	}
+}
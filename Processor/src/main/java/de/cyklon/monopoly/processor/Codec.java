@@ -0,0 +1,22 @@
+package de.cyklon.monopoly.processor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates a codec for the annotated packet class.
+ *
+ * <p> For a packet {@code PacketX}, the class {@code PacketXCodec} is generated in the same package,
+ * with a static {@code write(PacketX, BitBuffer)} that writes all instance fields in declaration order
+ * and a static {@code read(BitBuffer)} that reads them in the same order and passes them to the
+ * constructor taking all fields in declaration order. </p>
+ *
+ * <p> Fields must be final and not private. Supported are primitives, primitive arrays,
+ * {@code String}, {@code UUID} and enums. Integral fields can be packed with {@link Ranged}. </p>
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface Codec {
+}
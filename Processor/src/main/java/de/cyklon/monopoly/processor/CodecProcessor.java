@@ -0,0 +1,292 @@
+package de.cyklon.monopoly.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates the codecs of {@link Codec} packets.
+ *
+ * <p> Both methods of a codec are generated from the same list of fields,
+ * so encoder and decoder can't drift apart. Everything the codec can't handle
+ * is reported as compile error on the offending element. </p>
+ */
+@SupportedAnnotationTypes("de.cyklon.monopoly.processor.Codec")
+public class CodecProcessor extends AbstractProcessor {
+
+	private static final String BIT_BUFFER = "de.cyklon.monopoly.protocol.io.BitBuffer";
+	private static final String RANGE = "de.cyklon.monopoly.protocol.io.Range";
+	private static final String GAME_PACKET = "de.cyklon.monopoly.protocol.GamePacket";
+	/**
+	 * Lombok annotations whose constructor takes all final fields in declaration order.
+	 * Lombok may add the constructor after this processor looked at the class
+	 */
+	private static final Set<String> ALL_ARGS_CONSTRUCTORS = Set.of("lombok.RequiredArgsConstructor", "lombok.AllArgsConstructor");
+
+	/**
+	 * One field of a packet
+	 * @param name the field name
+	 * @param write the statement writing the field of {@code packet} into {@code buffer}
+	 * @param read the expression reading the field from {@code buffer}
+	 * @param constants declarations of constants the statements need, may be empty
+	 */
+	private record Field(String name, String type, String write, String read, String constants) {}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (Element element : roundEnv.getElementsAnnotatedWith(Codec.class)) {
+			if (element.getKind() != ElementKind.CLASS || element.getEnclosingElement().getKind() != ElementKind.PACKAGE) {
+				error(element, "@Codec is only supported on top level classes");
+				continue;
+			}
+			TypeElement type = (TypeElement) element;
+			List<Field> fields = fields(type);
+			if (fields == null) continue;
+			if (!hasConstructor(type, fields)) {
+				//the codec would fail to compile, with the error in generated code
+				error(type, "@Codec packets need a non private constructor taking all fields in declaration order (%s)"
+						.formatted(String.join(", ", fields.stream().map(f -> f.type() + " " + f.name()).toList())));
+				continue;
+			}
+			if (isGamePacket(type) && (fields.isEmpty() || !fields.get(0).name().equals("gameId") || !fields.get(0).type().equals("java.util.UUID"))) {
+				//the server reads the game id at a fixed position, see PacketHeader
+				error(type, "The first field of game packets must be UUID gameId");
+				continue;
+			}
+			try {
+				generate(type, fields);
+			} catch (IOException e) {
+				error(type, "Failed to write codec: " + e.getMessage());
+			}
+		}
+		return true;
+	}
+
+	private List<Field> fields(TypeElement type) {
+		boolean valid = true;
+
+		for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+			List<? extends VariableElement> parameters = constructor.getParameters();
+			if (parameters.size() == 1 && parameters.get(0).asType().toString().equals(BIT_BUFFER)) {
+				error(constructor, "@Codec packets are decoded by %sCodec.read, remove the hand written decoder".formatted(type.getSimpleName()));
+				valid = false;
+			}
+		}
+
+		List<Field> fields = new ArrayList<>();
+		for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+			Set<Modifier> modifiers = field.getModifiers();
+			if (modifiers.contains(Modifier.STATIC)) continue;
+			if (modifiers.contains(Modifier.PRIVATE)) {
+				error(field, "Fields of @Codec packets must not be private");
+				valid = false;
+			} else if (!modifiers.contains(Modifier.FINAL)) {
+				error(field, "Fields of @Codec packets must be final");
+				valid = false;
+			} else {
+				Field f = field(field);
+				if (f == null) valid = false;
+				else fields.add(f);
+			}
+		}
+		return valid ? fields : null;
+	}
+
+	private Field field(VariableElement field) {
+		String name = field.getSimpleName().toString();
+		String value = "packet." + name;
+		TypeMirror type = field.asType();
+		String typeName = type.toString();
+		Ranged ranged = field.getAnnotation(Ranged.class);
+
+		if (ranged != null) {
+			if (!isIntegral(type.getKind())) {
+				error(field, "@Ranged is only supported on byte, short, int and long fields");
+				return null;
+			}
+			if (ranged.min() > ranged.max()) {
+				error(field, "@Ranged min must not be greater than max");
+				return null;
+			}
+			long lowest = lowest(type.getKind()), highest = highest(type.getKind());
+			if (ranged.min() < lowest || ranged.max() > highest) {
+				//the codec casts the decoded value to the field type, it would be truncated silently
+				error(field, "@Ranged bounds %d to %d don't fit in %s, which holds %d to %d"
+						.formatted(ranged.min(), ranged.max(), typeName, lowest, highest));
+				return null;
+			}
+			String constant = constantName(name);
+			return new Field(name, typeName,
+					"buffer.putRanged(%s, %s);".formatted(constant, value),
+					"(%s) buffer.getRanged(%s)".formatted(typeName, constant),
+					"private static final %s %s = %s.of(%dL, %dL);".formatted(RANGE, constant, RANGE, ranged.min(), ranged.max()));
+		}
+
+		String accessor = switch (type.getKind()) {
+			case BOOLEAN -> "";
+			case BYTE -> "Byte";
+			case SHORT -> "Short";
+			case CHAR -> "Char";
+			case INT -> "Int";
+			case LONG -> "Long";
+			case FLOAT -> "Float";
+			case DOUBLE -> "Double";
+			default -> null;
+		};
+		if (accessor != null) {
+			return new Field(name, typeName, "buffer.put%s(%s);".formatted(accessor, value), "buffer.get%s()".formatted(accessor), "");
+		}
+
+		if (type.getKind() == TypeKind.ARRAY) {
+			TypeMirror component = ((ArrayType) type).getComponentType();
+			String getter = switch (component.getKind()) {
+				case BOOLEAN -> "getAssigned";
+				case BYTE -> "getAssignedBytes";
+				case SHORT -> "getAssignedShorts";
+				case CHAR -> "getAssignedChars";
+				case INT -> "getAssignedInts";
+				case LONG -> "getAssignedLongs";
+				case FLOAT -> "getAssignedFloats";
+				case DOUBLE -> "getAssignedDoubles";
+				default -> null;
+			};
+			if (getter != null) {
+				return new Field(name, typeName, "buffer.putAssigned(%s);".formatted(value), "buffer.%s()".formatted(getter), "");
+			}
+		}
+
+		if (type.getKind() == TypeKind.DECLARED) {
+			switch (typeName) {
+				case "java.lang.String":
+					return new Field(name, typeName, "buffer.putString(%s);".formatted(value), "buffer.getString()", "");
+				case "java.util.UUID":
+					return new Field(name, typeName, "buffer.putUUID(%s);".formatted(value), "buffer.getUUID()", "");
+			}
+			TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+			if (element.getKind() == ElementKind.ENUM) {
+				long constants = element.getEnclosedElements().stream().filter(e -> e.getKind() == ElementKind.ENUM_CONSTANT).count();
+				String constant = constantName(name);
+				return new Field(name, typeName,
+						"buffer.putRanged(%s, %s.ordinal());".formatted(constant, value),
+						"%s_VALUES[(int) buffer.getRanged(%s)]".formatted(constant, constant),
+						"private static final %s %s = %s.of(0L, %dL);\n\tprivate static final %s[] %s_VALUES = %s.values();"
+								.formatted(RANGE, constant, RANGE, Math.max(constants - 1, 0), typeName, constant, typeName));
+			}
+		}
+
+		error(field, "Type %s is not supported by @Codec".formatted(typeName));
+		return null;
+	}
+
+	private void generate(TypeElement type, List<Field> fields) throws IOException {
+		String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+		String packetName = type.getSimpleName().toString();
+		String codecName = packetName + "Codec";
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("package ").append(packageName).append(";\n\n");
+		sb.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n");
+		sb.append("public final class ").append(codecName).append(" {\n\n");
+		boolean constants = false;
+		for (Field field : fields) {
+			if (field.constants().isEmpty()) continue;
+			sb.append('\t').append(field.constants()).append('\n');
+			constants = true;
+		}
+		if (constants) sb.append('\n');
+		sb.append("\tprivate ").append(codecName).append("() {}\n\n");
+
+		sb.append("\tpublic static void write(").append(packetName).append(" packet, ").append(BIT_BUFFER).append(" buffer) {\n");
+		for (Field field : fields) sb.append("\t\t").append(field.write()).append('\n');
+		sb.append("\t}\n\n");
+
+		sb.append("\tpublic static ").append(packetName).append(" read(").append(BIT_BUFFER).append(" buffer) {\n");
+		for (Field field : fields) {
+			sb.append("\t\t").append(field.type()).append(' ').append(field.name()).append(" = ").append(field.read()).append(";\n");
+		}
+		sb.append("\t\treturn new ").append(packetName).append('(');
+		for (int i = 0; i < fields.size(); i++) {
+			if (i > 0) sb.append(", ");
+			sb.append(fields.get(i).name());
+		}
+		sb.append(");\n\t}\n}\n");
+
+		try (Writer writer = processingEnv.getFiler().createSourceFile(packageName + "." + codecName, type).openWriter()) {
+			writer.write(sb.toString());
+		}
+	}
+
+	private boolean hasConstructor(TypeElement type, List<Field> fields) {
+		for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+			if (ALL_ARGS_CONSTRUCTORS.contains(((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString())) return true;
+		}
+		List<VariableElement> variables = new ArrayList<>();
+		for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+			if (!field.getModifiers().contains(Modifier.STATIC)) variables.add(field);
+		}
+		for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+			if (constructor.getModifiers().contains(Modifier.PRIVATE)) continue;
+			List<? extends VariableElement> parameters = constructor.getParameters();
+			if (parameters.size() != variables.size()) continue;
+			boolean matches = true;
+			for (int i = 0; i < parameters.size() && matches; i++) {
+				matches = processingEnv.getTypeUtils().isSameType(parameters.get(i).asType(), variables.get(i).asType());
+			}
+			if (matches) return true;
+		}
+		return false;
+	}
+
+	private static boolean isIntegral(TypeKind kind) {
+		return kind == TypeKind.BYTE || kind == TypeKind.SHORT || kind == TypeKind.INT || kind == TypeKind.LONG;
+	}
+
+	private static long lowest(TypeKind kind) {
+		return switch (kind) {
+			case BYTE -> Byte.MIN_VALUE;
+			case SHORT -> Short.MIN_VALUE;
+			case INT -> Integer.MIN_VALUE;
+			default -> Long.MIN_VALUE;
+		};
+	}
+
+	private static long highest(TypeKind kind) {
+		return switch (kind) {
+			case BYTE -> Byte.MAX_VALUE;
+			case SHORT -> Short.MAX_VALUE;
+			case INT -> Integer.MAX_VALUE;
+			default -> Long.MAX_VALUE;
+		};
+	}
+
+	private static String constantName(String field) {
+		return field.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase();
+	}
+
+	private boolean isGamePacket(TypeElement type) {
+		TypeElement gamePacket = processingEnv.getElementUtils().getTypeElement(GAME_PACKET);
+		return gamePacket != null && processingEnv.getTypeUtils().isAssignable(type.asType(), processingEnv.getTypeUtils().erasure(gamePacket.asType()));
+	}
+
+	private void error(Element element, String message) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+	}
+}
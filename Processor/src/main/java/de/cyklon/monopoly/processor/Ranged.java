@@ -0,0 +1,26 @@
+package de.cyklon.monopoly.processor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limits an integral field of a {@link Codec} packet to a range of values.
+ * The generated codec writes the field in exactly as many bits as the range needs
+ * and rejects values outside the range when encoding.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Ranged {
+
+	/**
+	 * @return the lowest allowed value, inclusive
+	 */
+	long min();
+
+	/**
+	 * @return the highest allowed value, inclusive
+	 */
+	long max();
+}
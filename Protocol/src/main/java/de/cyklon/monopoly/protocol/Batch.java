@@ -0,0 +1,107 @@
+package de.cyklon.monopoly.protocol;
+
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+
+/**
+ * Packs several packets into one frame.
+ *
+ * <p> A batch frame starts with the reserved packet id {@value #ID}, followed by the entries.
+ * Every entry is the length of a packet as unsigned LEB128 varint followed by the packet,
+ * as it would be the payload of its own frame. Batches are not nested. </p>
+ *
+ * <p> {@link FrameDecoder} splits batches on its own, so handlers only ever see single packets. </p>
+ */
+@UtilityClass
+public class Batch {
+
+	/**
+	 * The packet id of batch frames, no packet can be registered with it
+	 */
+	public static final int ID = 0;
+
+	/**
+	 * @param frame the payload of a frame, its position is not changed
+	 * @return {@code true} if the frame is a batch
+	 */
+	public static boolean isBatch(ByteBuffer frame) {
+		//ids take the whole first byte, see PacketRegistry.ID_BITS
+		return frame.hasRemaining() && frame.get(frame.position()) == ID;
+	}
+
+	/**
+	 * @param length the length of a packet
+	 * @return the amount of bytes the packet takes as entry of a batch
+	 */
+	public static int entrySize(int length) {
+		return varIntSize(length) + length;
+	}
+
+	/**
+	 * Writes the header of a batch
+	 * @param dst the buffer to write to
+	 */
+	public static void putHeader(ByteBuffer dst) {
+		dst.put((byte) ID);
+	}
+
+	/**
+	 * Writes a packet as entry of a batch
+	 * @param dst the buffer to write to
+	 * @param src the array containing the packet
+	 * @param offset the index of the first byte of the packet
+	 * @param length the length of the packet
+	 */
+	public static void putEntry(ByteBuffer dst, byte[] src, int offset, int length) {
+		int value = length;
+		while ((value & ~0x7F) != 0) {
+			dst.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		dst.put((byte) value);
+		dst.put(src, offset, length);
+	}
+
+	/**
+	 * Passes every entry of a batch to the handler, without copying.
+	 * The position of the frame is moved to its limit.
+	 * @param frame the payload of a batch frame
+	 * @param handler receives the entries
+	 * @throws StreamCorruptedException if the batch is malformed or nested
+	 * @throws IOException if the handler fails
+	 */
+	public static void split(ByteBuffer frame, FrameDecoder.Handler handler) throws IOException {
+		int limit = frame.limit();
+		frame.position(frame.position() + 1);
+		while (frame.hasRemaining()) {
+			int length = getVarInt(frame);
+			if (length <= 0 || length > frame.remaining()) throw new StreamCorruptedException("invalid batch entry length: " + length);
+			int end = frame.position() + length;
+			frame.limit(end);
+			try {
+				if (isBatch(frame)) throw new StreamCorruptedException("nested batch");
+				handler.onFrame(frame);
+			} finally {
+				frame.limit(limit).position(end);
+			}
+		}
+	}
+
+	private static int getVarInt(ByteBuffer frame) throws StreamCorruptedException {
+		int value = 0;
+		for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+			if (!frame.hasRemaining()) throw new StreamCorruptedException("batch ends inside an entry length");
+			byte b = frame.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) return value;
+		}
+		throw new StreamCorruptedException("batch entry length is too long");
+	}
+
+	private static int varIntSize(int value) {
+		return (38 - Integer.numberOfLeadingZeros(value | 1)) / 7;
+	}
+}
@@ -0,0 +1,205 @@
+package de.cyklon.monopoly.protocol;
+
+import de.cyklon.monopoly.protocol.io.ByteArrayPool;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+
+/**
+ * Splits a stream of bytes into frames.
+ *
+ * <p> Every frame is a big endian 32 bit length followed by that many bytes of payload,
+ * as written by {@link java.io.DataOutputStream#writeInt(int)}. Chunks of any size can be
+ * passed to {@link #decode(ByteBuffer)}, the decoder keeps partial lengths and payloads
+ * until the rest arrives. Frames that are completely inside a chunk are handed out
+ * without copying. Frames with a length of zero are skipped, {@link Batch batches} are
+ * split and their packets are handed out one by one. </p>
+ *
+ * <p> The length is checked against the maximum frame size before anything is allocated.
+ * Partial payloads are buffered in arrays of a {@link ByteArrayPool}, which are returned
+ * as soon as the handler is done with the frame. </p>
+ *
+ * <p> The decoder only works on the given byte buffers, so it can be fed from a blocking
+ * stream as well as from a NIO channel. A decoder belongs to one stream and is not thread safe. </p>
+ */
+public class FrameDecoder {
+
+	/**
+	 * Receives the decoded frames
+	 */
+	@FunctionalInterface
+	public interface Handler {
+
+		/**
+		 * Called for every complete frame.
+		 * The buffer is only valid during the call, its remaining bytes are the payload
+		 * @param frame the payload of the frame
+		 * @throws IOException if the frame can't be handled, stops the decoding
+		 */
+		void onFrame(ByteBuffer frame) throws IOException;
+	}
+
+	/**
+	 * Receives the decoded packets
+	 */
+	@FunctionalInterface
+	public interface PacketHandler {
+
+		void onPacket(Packet packet) throws IOException;
+	}
+
+	/**
+	 * The maximum frame size used if none is given
+	 */
+	public static final int DEFAULT_MAX_FRAME_SIZE = 64 * 1024;
+
+	private final Handler handler;
+	private final int maxFrameSize;
+	private final ByteArrayPool pool;
+	private final FrameStats stats;
+
+	private int header;
+	private int headerBytes;
+
+	private byte[] payload;
+	private int payloadLength;
+	private int payloadBytes;
+
+	public FrameDecoder(Handler handler) {
+		this(handler, DEFAULT_MAX_FRAME_SIZE, ByteArrayPool.shared(), new FrameStats());
+	}
+
+	/**
+	 * @param handler receives the frames
+	 * @param maxFrameSize the maximum payload length of a frame, in bytes
+	 * @param pool the pool partial payloads are buffered in
+	 * @param stats counts the decoded and rejected frames
+	 */
+	public FrameDecoder(Handler handler, int maxFrameSize, ByteArrayPool pool, FrameStats stats) {
+		if (maxFrameSize <= 0) throw new IllegalArgumentException("maxFrameSize must be positive: " + maxFrameSize);
+		this.handler = handler;
+		this.maxFrameSize = maxFrameSize;
+		this.pool = pool;
+		this.stats = stats;
+	}
+
+	/**
+	 * Creates a decoder that parses every frame as packet
+	 * @param handler receives the packets
+	 * @return the new decoder
+	 */
+	public static FrameDecoder packets(PacketHandler handler) {
+		return new FrameDecoder(packetHandler(handler));
+	}
+
+	/**
+	 * Creates a decoder that parses every frame as packet
+	 * @param handler receives the packets
+	 * @param maxFrameSize the maximum payload length of a frame, in bytes
+	 * @param pool the pool partial payloads are buffered in
+	 * @param stats counts the decoded and rejected frames
+	 * @return the new decoder
+	 */
+	public static FrameDecoder packets(PacketHandler handler, int maxFrameSize, ByteArrayPool pool, FrameStats stats) {
+		return new FrameDecoder(packetHandler(handler), maxFrameSize, pool, stats);
+	}
+
+	private static Handler packetHandler(PacketHandler handler) {
+		return frame -> handler.onPacket(Packet.read(frame));
+	}
+
+	/**
+	 * Decodes all remaining bytes of the chunk, the position of the chunk is moved to its limit.
+	 * @param chunk the next bytes of the stream
+	 * @throws StreamCorruptedException if a frame declares a negative length, exceeds the maximum frame size or is a malformed batch
+	 * @throws IOException if the handler fails
+	 */
+	public void decode(ByteBuffer chunk) throws IOException {
+		while (chunk.hasRemaining()) {
+			if (payload == null) {
+				int length;
+				if (headerBytes == 0 && chunk.remaining() >= Integer.BYTES) {
+					length = chunk.getInt();
+				} else {
+					while (headerBytes < Integer.BYTES && chunk.hasRemaining()) {
+						header = (header << 8) | (chunk.get() & 0xFF);
+						headerBytes++;
+					}
+					if (headerBytes < Integer.BYTES) return;
+					length = header;
+					headerBytes = 0;
+				}
+
+				if (length < 0) {
+					stats.malformed();
+					throw new StreamCorruptedException("negative frame length: " + length);
+				}
+				if (length > maxFrameSize) {
+					stats.oversized();
+					throw new StreamCorruptedException("frame of %d bytes exceeds the maximum of %d bytes".formatted(length, maxFrameSize));
+				}
+				if (length == 0) continue;
+				stats.frame(length);
+
+				if (chunk.remaining() >= length) {
+					int limit = chunk.limit();
+					int end = chunk.position() + length;
+					chunk.limit(end);
+					try {
+						emit(chunk);
+					} finally {
+						chunk.limit(limit).position(end);
+					}
+					continue;
+				}
+
+				payload = pool.acquire(length);
+				payloadLength = length;
+				payloadBytes = 0;
+			}
+
+			int n = Math.min(chunk.remaining(), payloadLength - payloadBytes);
+			chunk.get(payload, payloadBytes, n);
+			payloadBytes += n;
+			if (payloadBytes == payloadLength) {
+				byte[] array = payload;
+				payload = null;
+				try {
+					emit(ByteBuffer.wrap(array, 0, payloadLength));
+				} finally {
+					pool.release(array);
+				}
+			}
+		}
+	}
+
+	private void emit(ByteBuffer frame) throws IOException {
+		if (!Batch.isBatch(frame)) {
+			handler.onFrame(frame);
+			return;
+		}
+		try {
+			Batch.split(frame, handler);
+		} catch (StreamCorruptedException e) {
+			stats.malformed();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return {@code true} if the decoder is between two frames
+	 */
+	public boolean isIdle() {
+		return payload == null && headerBytes == 0;
+	}
+
+	/**
+	 * Returns the buffer of a partial payload to the pool, the decoder must not be used afterwards.
+	 */
+	public void release() {
+		if (payload == null) return;
+		pool.release(payload);
+		payload = null;
+	}
+}
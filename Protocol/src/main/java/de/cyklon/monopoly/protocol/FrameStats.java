@@ -0,0 +1,68 @@
+package de.cyklon.monopoly.protocol;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the frames of one or more {@link FrameDecoder decoders}.
+ * The counters can be updated from many connections at once.
+ */
+public class FrameStats {
+
+	private final LongAdder frames = new LongAdder();
+	private final LongAdder bytes = new LongAdder();
+	private final LongAdder oversized = new LongAdder();
+	private final LongAdder malformed = new LongAdder();
+
+	void frame(int length) {
+		frames.increment();
+		bytes.add(length);
+	}
+
+	void oversized() {
+		oversized.increment();
+	}
+
+	void malformed() {
+		malformed.increment();
+	}
+
+	/**
+	 * @return the amount of decoded frames
+	 */
+	public long getFrames() {
+		return frames.sum();
+	}
+
+	/**
+	 * @return the amount of payload bytes of the decoded frames
+	 */
+	public long getBytes() {
+		return bytes.sum();
+	}
+
+	/**
+	 * @return the amount of frames rejected because they exceeded the maximum frame size
+	 */
+	public long getOversized() {
+		return oversized.sum();
+	}
+
+	/**
+	 * @return the amount of frames rejected because of an invalid length
+	 */
+	public long getMalformed() {
+		return malformed.sum();
+	}
+
+	/**
+	 * @return the amount of rejected frames
+	 */
+	public long getRejected() {
+		return getOversized() + getMalformed();
+	}
+
+	@Override
+	public String toString() {
+		return "FrameStats[frames=%d, bytes=%d, oversized=%d, malformed=%d]".formatted(getFrames(), getBytes(), getOversized(), getMalformed());
+	}
+}
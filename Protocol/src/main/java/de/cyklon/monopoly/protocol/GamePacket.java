@@ -0,0 +1,14 @@
+package de.cyklon.monopoly.protocol;
+
+import java.util.UUID;
+
+/**
+ * A packet a client sends to one of the games on the server.
+ */
+public interface GamePacket {
+
+	/**
+	 * @return the id of the game the packet is meant for
+	 */
+	UUID getGameId();
+}
@@ -1,32 +1,82 @@
 package de.cyklon.monopoly.protocol;
 
 import de.cyklon.monopoly.protocol.io.BitBuffer;
+import de.cyklon.monopoly.protocol.io.BitBufferPool;
+import de.cyklon.monopoly.protocol.io.LengthPrefix;
 
 import java.io.InvalidClassException;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
 
 public abstract class Packet {
 
-	protected Packet(byte[] data) {}
+	/**
+	 * Length prefix of all strings and arrays in packets
+	 */
+	public static final LengthPrefix LENGTH_PREFIX = LengthPrefix.VARINT;
 
 	protected Packet() {}
 
-	protected abstract byte[] data();
+	/**
+	 * Writes the packet body into the buffer
+	 * @param buffer the buffer to write to
+	 */
+	protected abstract void write(BitBuffer buffer);
 
 	/**
-	 * Serializes the packet in bytes. can be deserialized with {@link Packet#read(byte[])}
-	 * @return the serialized data
+	 * Packets that only decorate the game, like descriptions, can be dropped
+	 * for clients that can't keep up with the server.
+	 * @return {@code true} if the packet may be dropped instead of being delivered
 	 */
-	public byte[] getBytes() {
-		byte[] type = this.getClass().getName().getBytes();
-		byte[] data = data();
+	public boolean isDroppable() {
+		return false;
+	}
+
+	/**
+	 * Packets that carry the latest state of something can replace a queued,
+	 * not yet delivered packet of the same class with an equal key.
+	 * @return the key of the state this packet carries, or {@code null} if it can't replace other packets
+	 */
+	public Object getCoalesceKey() {
+		return null;
+	}
 
-		BitBuffer buffer = BitBuffer.allocate((4 + type.length + 4 + data.length)*8);
-		buffer.putAssigned(type);
-		buffer.putAssigned(data);
+	/**
+	 * Packets a client missed while it reconnected are sent again when it resumes its session.
+	 * Clients count the replayable packets they receive, to tell the server where to continue.
+	 * @return {@code true} if the packet is sent again after a reconnect
+	 */
+	public boolean isReplayable() {
+		return true;
+	}
 
-		return buffer.asByteArray();
+	/**
+	 * Writes the packet header followed by the body into the buffer.
+	 * can be deserialized with {@link Packet#read(ByteBuffer)}
+	 * @param buffer the buffer to write to, usually a {@link BitBuffer#growable(int) growable} one
+	 */
+	public void writeTo(BitBuffer buffer) {
+		buffer.lengthPrefix(LENGTH_PREFIX);
+		PacketRegistry.getDefault().writeId(buffer, getClass());
+		write(buffer);
+	}
+
+	/**
+	 * Serializes the packet in bytes. can be deserialized with {@link Packet#read(byte[])}.
+	 * The bytes are copied out of a pooled writer, use {@link #writeTo(BitBuffer)} to avoid the copy
+	 * @return the serialized data
+	 */
+	public byte[] getBytes() {
+		BitBufferPool pool = BitBufferPool.shared();
+		BitBuffer buffer = pool.acquire();
+		try {
+			writeTo(buffer);
+			ByteBuffer bytes = buffer.toByteBuffer();
+			byte[] result = new byte[bytes.remaining()];
+			bytes.get(result);
+			return result;
+		} finally {
+			pool.release(buffer);
+		}
 	}
 
 	/**
@@ -34,30 +84,28 @@ public abstract class Packet {
 	 * @param data the packet data to parse
 	 * @return the parsed packet
 	 * @param <T> the packet type
-	 * @throws InvalidClassException thrown if the data declares a invalid packet class
-	 * @throws InvocationTargetException thrown when invoking packet class fails
+	 * @throws InvalidClassException thrown if the data declares an unknown packet id
 	 */
-	@SuppressWarnings("unchecked")
-	public static <T extends Packet> T read(byte[] data) throws InvalidClassException, InvocationTargetException {
-		BitBuffer buffer = BitBuffer.wrap(data);
+	public static <T extends Packet> T read(byte[] data) throws InvalidClassException {
+		return read(BitBuffer.readOnlyView(data));
+	}
 
+	/**
+	 * Parses a packet from the remaining bytes of a byte buffer, without copying them first.
+	 * The position of the byte buffer is not changed.
+	 * @param data the packet data to parse
+	 * @return the parsed packet
+	 * @param <T> the packet type
+	 * @throws InvalidClassException thrown if the data declares an unknown packet id
+	 */
+	public static <T extends Packet> T read(ByteBuffer data) throws InvalidClassException {
+		return read(BitBuffer.readOnlyView(data));
+	}
 
-		String tName = new String(buffer.getAssignedBytes());
-		try {
-			Class<?> t = Class.forName(tName);
-			if (!Packet.class.isAssignableFrom(t)) throw new InvalidClassException(tName, "Class is not a Packet class");
-			Class<T> type = (Class<T>) t;
-
-			Constructor<T> constructor = type.getConstructor(byte[].class);
-
-			return constructor.newInstance((Object) buffer.getAssignedBytes());
-		} catch (ClassNotFoundException e) {
-			throw new InvalidClassException(tName, "Packet class not found");
-		} catch (NoSuchMethodException e) {
-			throw new InvalidClassException(tName, "Invalid Packet class");
-		} catch (InvocationTargetException | InstantiationException | IllegalAccessException e) {
-			throw new InvocationTargetException(e, "Failed invoke Packet");
-		}
+	@SuppressWarnings("unchecked")
+	private static <T extends Packet> T read(BitBuffer buffer) throws InvalidClassException {
+		buffer.lengthPrefix(LENGTH_PREFIX);
+		return (T) PacketRegistry.getDefault().read(buffer);
 	}
 
 }
@@ -0,0 +1,43 @@
+package de.cyklon.monopoly.protocol;
+
+import de.cyklon.monopoly.protocol.io.BitBuffer;
+import lombok.experimental.UtilityClass;
+
+import java.io.StreamCorruptedException;
+import java.util.UUID;
+
+/**
+ * Reads the fixed position header of an encoded packet, without decoding the packet.
+ *
+ * <p> Every packet starts with its id in {@value PacketRegistry#ID_BITS} bits. {@link GamePacket Game packets}
+ * declare their game id as first field, so it always follows the packet id. Servers can route
+ * the still encoded packet to its game and let the game decode it. </p>
+ */
+@UtilityClass
+public class PacketHeader {
+
+	/**
+	 * The bit index of the game id of {@link PacketRegistry#isRouted(int) routed} packets
+	 */
+	public static final int GAME_ID_INDEX = PacketRegistry.ID_BITS;
+
+	/**
+	 * @param packet the encoded packet, its position is not changed
+	 * @return the packet id
+	 * @throws StreamCorruptedException if the packet is empty
+	 */
+	public static int getId(BitBuffer packet) throws StreamCorruptedException {
+		if (packet.capacity() < PacketRegistry.ID_BITS) throw new StreamCorruptedException("packet is empty");
+		return (int) packet.getVarNumber(0, PacketRegistry.ID_BITS, false);
+	}
+
+	/**
+	 * @param packet the encoded packet of a {@link PacketRegistry#isRouted(int) routed} type, its position is not changed
+	 * @return the id of the game the packet is meant for
+	 * @throws StreamCorruptedException if the packet ends before the game id
+	 */
+	public static UUID getGameId(BitBuffer packet) throws StreamCorruptedException {
+		if (packet.capacity() < GAME_ID_INDEX + 2 * Long.SIZE) throw new StreamCorruptedException("packet ends before its game id");
+		return packet.getUUID(GAME_ID_INDEX);
+	}
+}
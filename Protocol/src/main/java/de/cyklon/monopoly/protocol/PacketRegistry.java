@@ -0,0 +1,120 @@
+package de.cyklon.monopoly.protocol;
+
+import de.cyklon.monopoly.protocol.io.BitBuffer;
+import de.cyklon.monopoly.protocol.packet.*;
+
+import java.io.InvalidClassException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Assigns numeric ids to packet types.
+ *
+ * <p> Every packet starts with its id in {@value #ID_BITS} bits. On read, the id
+ * is looked up in a table of factories, so no reflection is involved.
+ * Client and server have to register the same packets under the same ids,
+ * and all packets have to be registered before the registry is used. </p>
+ *
+ * <p> Packets implementing {@link GamePacket} are <i>routed</i>: their game id is the first field,
+ * so it can be read with {@link PacketHeader} before the packet is decoded. </p>
+ */
+public class PacketRegistry {
+
+	/**
+	 * Amount of bits of the packet id in front of every packet
+	 */
+	public static final int ID_BITS = 8;
+
+	private static final PacketRegistry DEFAULT = new PacketRegistry()
+			.register(1, PacketCreateGame.class, PacketCreateGameCodec::read)
+			.register(2, PacketJoinGame.class, PacketJoinGameCodec::read)
+			.register(3, PacketShowDice.class, PacketShowDiceCodec::read)
+			.register(4, PacketMove.class, PacketMoveCodec::read)
+			.register(5, PacketStartTurn.class, PacketStartTurnCodec::read)
+			.register(6, PacketShowEndTurn.class, PacketShowEndTurnCodec::read)
+			.register(7, PacketBuyDialog.class, PacketBuyDialogCodec::read)
+			.register(8, PacketDescription.class, PacketDescriptionCodec::read)
+			.register(9, PacketJoinResult.class, PacketJoinResultCodec::read)
+			.register(10, PacketStartGame.class, PacketStartGameCodec::read)
+			.register(11, PacketRoll.class, PacketRollCodec::read)
+			.register(12, PacketEndTurn.class, PacketEndTurnCodec::read)
+			.register(13, PacketBuy.class, PacketBuyCodec::read)
+			.register(14, PacketPing.class, PacketPingCodec::read)
+			.register(15, PacketSession.class, PacketSessionCodec::read)
+			.register(16, PacketResume.class, PacketResumeCodec::read);
+
+	//generic arrays can't be created, only factories of the registered class are stored
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private final Function<BitBuffer, ? extends Packet>[] factories = new Function[1 << ID_BITS];
+	private final Map<Class<? extends Packet>, Integer> ids = new HashMap<>();
+	private final boolean[] routed = new boolean[1 << ID_BITS];
+
+	/**
+	 * @return the registry with all packets of the protocol
+	 */
+	public static PacketRegistry getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Registers a packet type
+	 * @param id the id of the packet, 1-255. {@value Batch#ID} is reserved for batches
+	 * @param type the packet class
+	 * @param factory reads the packet body from a buffer, usually the generated {@code read} of the packet's codec
+	 * @return this registry for chained calls
+	 * @param <T> the packet type
+	 * @throws IllegalArgumentException if the id is out of range, or the id or type is already registered
+	 */
+	public <T extends Packet> PacketRegistry register(int id, Class<T> type, Function<BitBuffer, T> factory) {
+		if (id < 0 || id >= factories.length) throw new IllegalArgumentException("packet id must be between 0 and " + (factories.length - 1) + ": " + id);
+		if (id == Batch.ID) throw new IllegalArgumentException("packet id " + id + " is reserved for batches");
+		if (factories[id] != null) throw new IllegalArgumentException("packet id " + id + " is already registered");
+		if (ids.containsKey(type)) throw new IllegalArgumentException("packet " + type.getName() + " is already registered");
+		factories[id] = factory;
+		ids.put(type, id);
+		routed[id] = GamePacket.class.isAssignableFrom(type);
+		return this;
+	}
+
+	/**
+	 * @param id the packet id
+	 * @return {@code true} if the packet is a {@link GamePacket} with the game id at {@link PacketHeader#GAME_ID_INDEX}
+	 */
+	public boolean isRouted(int id) {
+		return id >= 0 && id < routed.length && routed[id];
+	}
+
+	/**
+	 * @param type the packet class
+	 * @return the id of the packet
+	 * @throws IllegalArgumentException if the packet isn't registered
+	 */
+	public int getId(Class<? extends Packet> type) {
+		Integer id = ids.get(type);
+		if (id == null) throw new IllegalArgumentException("packet " + type.getName() + " is not registered");
+		return id;
+	}
+
+	/**
+	 * Writes the id of the packet type
+	 * @param buffer the buffer to write to
+	 * @param type the packet class
+	 */
+	public void writeId(BitBuffer buffer, Class<? extends Packet> type) {
+		buffer.putVarNumber(getId(type), ID_BITS, false);
+	}
+
+	/**
+	 * Reads the packet id and then the body with the registered factory
+	 * @param buffer the buffer, positioned at the start of the packet
+	 * @return the parsed packet
+	 * @throws InvalidClassException thrown if the id is not registered
+	 */
+	public Packet read(BitBuffer buffer) throws InvalidClassException {
+		int id = (int) buffer.getVarNumber(ID_BITS, false);
+		Function<BitBuffer, ? extends Packet> factory = factories[id];
+		if (factory == null) throw new InvalidClassException(String.valueOf(id), "Unknown packet id");
+		return factory.apply(buffer);
+	}
+}
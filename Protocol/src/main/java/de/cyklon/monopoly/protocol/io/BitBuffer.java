@@ -2,27 +2,51 @@ package de.cyklon.monopoly.protocol.io;
 
 import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
 import java.util.UUID;
 
 import static de.cyklon.monopoly.protocol.io.Serializer.*;
 
+/**
+ * A buffer of bits, written and read at a position that can be at any bit.
+ *
+ * <p> Bit buffers are not safe for use by multiple concurrent threads and don't lock.
+ * To let several threads read the same content, give every thread its own
+ * {@link #duplicate()} or {@link #slice(int, int)}; they share the content but not the position. </p>
+ */
 public class BitBuffer {
 
-	private final boolean[] bits;
+	private BitStorage storage;
+	private final boolean readOnly;
+	private final boolean growable;
 
 	private int pos = 0;
+	private LengthPrefix lengthPrefix = LengthPrefix.INT;
 
 
-	private BitBuffer(int capacity) {
-		this.bits = new boolean[capacity];
+	private BitBuffer(BitStorage storage, boolean readOnly, boolean growable) {
+		this.storage = storage;
+		this.readOnly = readOnly;
+		this.growable = growable;
+	}
+
+	private BitBuffer(BitStorage storage, boolean readOnly) {
+		this(storage, readOnly, false);
+	}
+
+	private BitBuffer(BitStorage storage) {
+		this(storage, false);
 	}
 
 	/**
 	 * Allocates a new bit buffer.
 	 *
-	 * <p> The new buffer's position will be zero
-	 *
-	 * It will have a {@link #array backing array}
+	 * <p> The new buffer's position will be zero.
+	 * Its bits are packed into {@code long} words, so the buffer needs
+	 * one byte of heap for every eight bits of capacity. </p>
 	 *
 	 * @param  capacity
 	 *         The new buffer's capacity, in bits
@@ -34,7 +58,30 @@ public class BitBuffer {
 	 */
 	public static BitBuffer allocate(int capacity) {
 		if (capacity < 0) throw new IllegalArgumentException("capacity < 0: (" + capacity + " < 0)");
-		return new BitBuffer(capacity);
+		return new BitBuffer(new LongArrayStorage(capacity));
+	}
+
+	/**
+	 * Allocates a new bit buffer that grows when it runs out of space.
+	 *
+	 * <p> Instead of throwing a {@link BufferOverflowException}, a write past the
+	 * capacity replaces the backing array by one of at least twice the size,
+	 * so writers don't need to know the size of their data up front.
+	 * The written bytes can be taken out without a copy using {@link #toByteBuffer()}.
+	 * The new buffer's position will be zero. </p>
+	 *
+	 * @param  initialCapacity
+	 *         The new buffer's initial capacity, in bits
+	 *
+	 * @return  The new bit buffer
+	 *
+	 * @throws  IllegalArgumentException
+	 *          If the {@code initialCapacity} is a negative integer
+	 */
+	public static BitBuffer growable(int initialCapacity) {
+		if (initialCapacity < 0) throw new IllegalArgumentException("capacity < 0: (" + initialCapacity + " < 0)");
+		int bytes = (initialCapacity + 7) >>> 3;
+		return new BitBuffer(new ByteArrayStorage(new byte[bytes], 0, bytes), false, true);
 	}
 
 	/**
@@ -43,66 +90,245 @@ public class BitBuffer {
 	 * <p> The new buffer will copy the given boolean array;
 	 * that is, modifications to the buffer will not affect the array
 	 * The new buffer's capacity will be
-	 * {@code array.length}, its position will be zero.
-
-
-	 * Its {@link #array backing array} will be a copy of the given array</p>
+	 * {@code array.length}, its position will be zero.</p>
 	 *
 	 * @param  array
-	 *         The array that will back this buffer
+	 *         The array that will be copied into this buffer
 	 *
 	 * @return  The new bit buffer
 	 */
 	public static BitBuffer wrap(boolean[] array) {
 		BitBuffer buffer = allocate(array.length);
-		System.arraycopy(array, 0, buffer.bits, 0, array.length);
+		for (int i = 0; i < array.length; i++) {
+			if (array[i]) buffer.storage.set(i, true);
+		}
 		return buffer;
 	}
 
 	/**
 	 * Wraps a byte array into a buffer.
 	 *
-	 * <p> The new buffer will convert the byte array in bits and wrap the bit array;
+	 * <p> The new buffer will copy the bytes into its packed storage;
 	 * that is, modifications to the buffer will not affect the array
 	 * The new buffer's capacity will be
-	 * {@code array.length}, its position will be zero.
+	 * {@code array.length*8}, its position will be zero.</p>
+	 *
+	 * @param  array
+	 *         The array that will be copied into this buffer
+	 *
+	 * @return  The new bit buffer
+	 */
+	public static BitBuffer wrap(byte[] array) {
+		return new BitBuffer(LongArrayStorage.of(array));
+	}
 
+	/**
+	 * Creates a buffer that works in place on the given byte array.
+	 *
+	 * <p> Nothing is copied; that is, modifications to the buffer will
+	 * modify the array, and vice versa.
+	 * The new buffer's capacity will be
+	 * {@code array.length*8}, its position will be zero.</p>
+	 *
+	 * @param  array
+	 *         The array that will back this buffer
+	 *
+	 * @return  The new bit buffer
+	 */
+	public static BitBuffer view(byte[] array) {
+		return view(array, 0, array.length);
+	}
 
-	 * Its {@link #array backing array} will be the converted bits from the byte array</p>
+	/**
+	 * Creates a buffer that works in place on a region of the given byte array.
+	 *
+	 * <p> Nothing is copied; that is, modifications to the buffer will
+	 * modify the array, and vice versa.
+	 * Bit zero of the new buffer is the highest bit of {@code array[offset]},
+	 * its capacity will be {@code length*8}, its position will be zero.</p>
 	 *
 	 * @param  array
-	 *         The array that will be converted to back this buffer
+	 *         The array that will back this buffer
+	 *
+	 * @param  offset
+	 *         The index of the first byte of the region
+	 *
+	 * @param  length
+	 *         The amount of bytes in the region
 	 *
 	 * @return  The new bit buffer
+	 *
+	 * @throws  IndexOutOfBoundsException
+	 *          If the region is not inside the array
 	 */
-	public static BitBuffer wrap(byte[] array) {
-		return wrap(serializeByteArray(array));
+	public static BitBuffer view(byte[] array, int offset, int length) {
+		Objects.checkFromIndexSize(offset, length, array.length);
+		return new BitBuffer(new ByteArrayStorage(array, offset, length));
+	}
+
+	/**
+	 * Creates a buffer that works in place on the remaining bytes of the given byte buffer.
+	 *
+	 * <p> Nothing is copied; that is, modifications to the bit buffer will
+	 * modify the byte buffer, and vice versa. Heap and direct byte buffers are supported.
+	 * The position of the byte buffer is not changed by the bit buffer.
+	 * Bit zero of the new buffer is the highest bit of the byte at the buffer's position,
+	 * its capacity will be {@code buffer.remaining()*8}, its position will be zero.
+	 * If the byte buffer is read-only, the bit buffer will be read-only as well.</p>
+	 *
+	 * @param  buffer
+	 *         The byte buffer that will back this buffer
+	 *
+	 * @return  The new bit buffer
+	 */
+	public static BitBuffer view(ByteBuffer buffer) {
+		return new BitBuffer(new ByteBufferStorage(buffer), buffer.isReadOnly());
+	}
+
+	/**
+	 * Creates a read-only buffer that works in place on the given byte array.
+	 *
+	 * @see #view(byte[])
+	 */
+	public static BitBuffer readOnlyView(byte[] array) {
+		return readOnlyView(array, 0, array.length);
+	}
+
+	/**
+	 * Creates a read-only buffer that works in place on a region of the given byte array.
+	 *
+	 * @see #view(byte[], int, int)
+	 */
+	public static BitBuffer readOnlyView(byte[] array, int offset, int length) {
+		Objects.checkFromIndexSize(offset, length, array.length);
+		return new BitBuffer(new ByteArrayStorage(array, offset, length), true);
+	}
+
+	/**
+	 * Creates a read-only buffer that works in place on the remaining bytes of the given byte buffer.
+	 *
+	 * @see #view(ByteBuffer)
+	 */
+	public static BitBuffer readOnlyView(ByteBuffer buffer) {
+		return new BitBuffer(new ByteBufferStorage(buffer), true);
 	}
 
 	/**
-	 * Returns the bit array (boolean array) that backs this
-	 * buffer
+	 * Creates a read-only buffer that shares this buffer's content.
 	 *
-	 * <p> Modifications to this buffer's content will cause the returned
-	 * array's content to be modified, and vice versa.
+	 * <p> Modifications to this buffer's content will be visible in the new buffer.
+	 * The new buffer's position will be the same as this buffer's,
+	 * but changing it will not affect this buffer.</p>
 	 *
-	 * @return  The array that backs this buffer
+	 * @return  The new, read-only, bit buffer
+	 */
+	public BitBuffer asReadOnlyBuffer() {
+		BitBuffer buffer = new BitBuffer(storage, true);
+		buffer.pos = pos;
+		buffer.lengthPrefix = lengthPrefix;
+		return buffer;
+	}
+
+	/**
+	 * Creates a new buffer that shares this buffer's content.
+	 *
+	 * <p> Modifications to this buffer's content will be visible in the new buffer,
+	 * and vice versa. The new buffer's position will be the same as this buffer's,
+	 * but the two positions are independent. The new buffer is read-only if this
+	 * buffer is read-only. It does not grow, even if this buffer does. </p>
+	 *
+	 * @return  The new bit buffer
+	 */
+	public BitBuffer duplicate() {
+		BitBuffer buffer = new BitBuffer(storage, readOnly);
+		buffer.pos = pos;
+		buffer.lengthPrefix = lengthPrefix;
+		return buffer;
+	}
+
+	/**
+	 * Creates a new buffer whose content is a shared region of this buffer's content.
+	 *
+	 * <p> Modifications to this buffer's content will be visible in the new buffer,
+	 * and vice versa. Bit zero of the new buffer is bit {@code from} of this buffer,
+	 * its capacity will be {@code to - from} and its position will be zero.
+	 * The new buffer is read-only if this buffer is read-only. It does not grow,
+	 * even if this buffer does. </p>
+	 *
+	 * @param  from
+	 *         The index of the first bit of the region, inclusive
+	 *
+	 * @param  to
+	 *         The index of the last bit of the region, exclusive
+	 *
+	 * @return  The new bit buffer
+	 *
+	 * @throws  IndexOutOfBoundsException
+	 *          If the region is not inside this buffer
+	 */
+	public BitBuffer slice(int from, int to) {
+		Objects.checkFromToIndex(from, to, storage.capacity());
+		BitBuffer buffer = new BitBuffer(new SliceStorage(storage, from, to - from), readOnly);
+		buffer.lengthPrefix = lengthPrefix;
+		return buffer;
+	}
+
+	/**
+	 * @return  {@code true} if this buffer grows instead of overflowing
+	 */
+	public boolean isGrowable() {
+		return growable;
+	}
+
+	/**
+	 * @return  {@code true} if this buffer can't be written to
+	 */
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+
+	/**
+	 * Returns the content of this buffer as bit array (boolean array)
+	 *
+	 * <p> Modifications to this buffer's content will not affect the returned
+	 * array's content, and vice versa.
+	 *
+	 * @return  The bits of this buffer
 	 */
 	public boolean[] array() {
+		boolean[] bits = new boolean[storage.capacity()];
+		for (int i = 0; i < bits.length; i++) bits[i] = storage.get(i);
 		return bits;
 	}
 
 	/**
-	 * Returns the bit array that backs this
-	 * buffer represented as byte array
+	 * Returns the content of this buffer
+	 * represented as byte array
 	 *
 	 * <p> Modifications to this buffer's content will not affect the returned
 	 * array's content
 	 *
-	 * @return  The array that backs this buffer represented as byte array
+	 * @return  The content of this buffer represented as byte array
 	 */
 	public byte[] asByteArray() {
-		return deserializeByteArray(bits);
+		return storage.toByteArray();
+	}
+
+	/**
+	 * Returns the bytes from the start of this buffer up to its current position.
+	 *
+	 * <p> For buffers backed by bytes, the returned byte buffer shares them;
+	 * that is, nothing is copied and modifications to this buffer's content will be
+	 * visible in the returned byte buffer. Unused bits of the last byte are cleared,
+	 * unless this buffer is read-only. </p>
+	 *
+	 * @return  The written bytes, from position zero to the end
+	 */
+	public ByteBuffer toByteBuffer() {
+		int bytes = (pos + 7) >>> 3;
+		int padding = (bytes << 3) - pos;
+		if (padding != 0 && !readOnly) storage.write(pos, padding, 0);
+		return storage.asByteBuffer(bytes);
 	}
 
 	public void rewind() {
@@ -118,7 +344,75 @@ public class BitBuffer {
 	}
 
 	public int capacity() {
-		return bits.length;
+		return storage.capacity();
+	}
+
+	/**
+	 * Sets how the length in front of strings and arrays is written and read.
+	 * New buffers use {@link LengthPrefix#INT}. Duplicates and slices
+	 * take over the length prefix of this buffer.
+	 *
+	 * @param  lengthPrefix
+	 *         The new length prefix
+	 *
+	 * @return  This buffer for chained calls
+	 */
+	public BitBuffer lengthPrefix(LengthPrefix lengthPrefix) {
+		this.lengthPrefix = Objects.requireNonNull(lengthPrefix);
+		return this;
+	}
+
+	public LengthPrefix lengthPrefix() {
+		return lengthPrefix;
+	}
+
+	private void ensureWritable(int bits) {
+		if (readOnly) throw new ReadOnlyBufferException();
+		int required = pos + bits;
+		if (required <= storage.capacity()) return;
+		if (!growable) throw new BufferOverflowException();
+		storage = ((ByteArrayStorage) storage).grow(required);
+	}
+
+	/**
+	 * Checks that {@code bits} bits can be read and moves the position behind them
+	 * @return the position of the first bit
+	 */
+	private int reserveRead(long bits) {
+		if (bits < 0 || pos + bits > storage.capacity()) throw new BufferUnderflowException();
+		int start = pos;
+		pos += (int) bits;
+		return start;
+	}
+
+	/**
+	 * Makes room for {@code bits} bits and moves the position behind them
+	 * @return the position of the first bit
+	 */
+	private int reserveWrite(long bits) {
+		if (pos + bits > Integer.MAX_VALUE) throw new BufferOverflowException();
+		ensureWritable((int) bits);
+		int start = pos;
+		pos += (int) bits;
+		return start;
+	}
+
+	private long read(int bits) {
+		if (pos + bits > storage.capacity()) throw new BufferUnderflowException();
+		long value = storage.read(pos, bits);
+		pos += bits;
+		return value;
+	}
+
+	private long read(int index, int bits) {
+		if (index < 0 || index > storage.capacity() - bits) throw new IndexOutOfBoundsException("index " + index + " with " + bits + " bits is out of bounds for capacity " + storage.capacity());
+		return storage.read(index, bits);
+	}
+
+	private void write(long value, int bits) {
+		ensureWritable(bits);
+		storage.write(pos, bits, value);
+		pos += bits;
 	}
 
 	//Primitives
@@ -134,10 +428,13 @@ public class BitBuffer {
 	 *
 	 * @throws  BufferOverflowException
 	 *          If this buffer's current position is not smaller than its limit
+	 *
+	 * @throws  ReadOnlyBufferException
+	 *          If this buffer is read-only
 	 */
 	public BitBuffer put(boolean value) {
-		if (pos==bits.length) throw new BufferOverflowException();
-		bits[pos++] = value;
+		ensureWritable(1);
+		storage.set(pos++, value);
 		return this;
 	}
 
@@ -154,7 +451,15 @@ public class BitBuffer {
 	 *          If there is insufficient space in this buffer
 	 */
 	public BitBuffer put(boolean[] src) {
-		for (boolean b1 : src) put(b1);
+		int p = reserveWrite(src.length);
+		int i = 0;
+		while (i < src.length) {
+			int bits = Math.min(Long.SIZE, src.length - i);
+			long word = 0;
+			for (int end = i + bits; i < end; i++) word = (word << 1) | (src[i] ? 1 : 0);
+			storage.write(p, bits, word);
+			p += bits;
+		}
 		return this;
 	}
 
@@ -173,7 +478,7 @@ public class BitBuffer {
 	 *          remaining in this buffer
 	 */
 	public BitBuffer putByte(byte value) {
-		put(serializeByte(value));
+		write(value, Byte.SIZE);
 		return this;
 	}
 
@@ -190,7 +495,8 @@ public class BitBuffer {
 	 *          If there is insufficient space in this buffer
 	 */
 	public BitBuffer putByteArray(byte[] src) {
-		put(serializeByteArray(src));
+		int p = reserveWrite((long) src.length * Byte.SIZE);
+		storage.writeBytes(p, src, 0, src.length);
 		return this;
 	}
 
@@ -209,7 +515,7 @@ public class BitBuffer {
 	 *          remaining in this buffer
 	 */
 	public BitBuffer putChar(char value) {
-		put(serializeChar(value));
+		write(value, Character.SIZE);
 		return this;
 	}
 
@@ -228,7 +534,7 @@ public class BitBuffer {
 	 *          remaining in this buffer
 	 */
 	public BitBuffer putShort(short value) {
-		put(serializeShort(value));
+		write(value, Short.SIZE);
 		return this;
 	}
 
@@ -247,7 +553,7 @@ public class BitBuffer {
 	 *          remaining in this buffer
 	 */
 	public BitBuffer putInt(int value) {
-		put(serializeInt(value));
+		write(value, Integer.SIZE);
 		return this;
 	}
 
@@ -266,7 +572,7 @@ public class BitBuffer {
 	 *          remaining in this buffer
 	 */
 	public BitBuffer putLong(long value) {
-		put(serializeLong(value));
+		write(value, Long.SIZE);
 		return this;
 	}
 
@@ -285,7 +591,7 @@ public class BitBuffer {
 	 *          remaining in this buffer
 	 */
 	public BitBuffer putFloat(float value) {
-		put(serializeFloat(value));
+		write(Float.floatToIntBits(value), Float.SIZE);
 		return this;
 	}
 
@@ -304,7 +610,7 @@ public class BitBuffer {
 	 *          remaining in this buffer
 	 */
 	public BitBuffer putDouble(double value) {
-		put(serializeDouble(value));
+		write(Double.doubleToLongBits(value), Double.SIZE);
 		return this;
 	}
 
@@ -334,7 +640,8 @@ public class BitBuffer {
 	 *          - If the given bit count is outside the allowed range 1-64
 	 */
 	public BitBuffer putVarNumber(long value, int bits, boolean signed) {
-		put(serializeVarNumber(value, bits, signed));
+		checkVarNumber(value, bits, signed);
+		write(value, bits);
 		return this;
 	}
 
@@ -348,8 +655,8 @@ public class BitBuffer {
 	 *          If the buffer's current position is not smaller than its capacity
 	 */
 	public boolean get() {
-		if (pos==bits.length) throw new BufferUnderflowException();
-		return bits[pos++];
+		if (pos==storage.capacity()) throw new BufferUnderflowException();
+		return storage.get(pos++);
 	}
 
 	/**
@@ -363,10 +670,15 @@ public class BitBuffer {
 	 *          If there are fewer than {@code length} bits
 	 *          remaining in this buffer
 	 */
-	public synchronized void get(boolean[] dst) {
-		if (pos + dst.length > bits.length) throw new BufferUnderflowException();
-		System.arraycopy(bits, pos, dst, 0, dst.length);
-		pos += dst.length;
+	public void get(boolean[] dst) {
+		int p = reserveRead(dst.length);
+		int i = 0;
+		while (i < dst.length) {
+			int bits = Math.min(Long.SIZE, dst.length - i);
+			long word = storage.read(p, bits);
+			p += bits;
+			for (int shift = bits - 1; shift >= 0; shift--) dst[i++] = ((word >>> shift) & 1) != 0;
+		}
 	}
 
 	/**
@@ -381,9 +693,7 @@ public class BitBuffer {
 	 *          remaining in this buffer
 	 */
 	public byte getByte() {
-		boolean[] src = new boolean[Byte.SIZE];
-		get(src);
-		return deserializeByte(src);
+		return (byte) read(Byte.SIZE);
 	}
 
 	/**
@@ -398,10 +708,10 @@ public class BitBuffer {
 	 *          remaining in this buffer
 	 */
 	public byte[] getByteArray(int length) {
-		if (pos + length*Byte.SIZE >= bits.length) throw new BufferOverflowException();
-		boolean[] src = new boolean[length*Byte.SIZE];
-		get(src);
-		return deserializeByteArray(src);
+		int p = reserveRead((long) length * Byte.SIZE);
+		byte[] result = new byte[length];
+		storage.readBytes(p, result, 0, length);
+		return result;
 	}
 
 	/**
@@ -416,9 +726,7 @@ public class BitBuffer {
 	 *          remaining in this buffer
 	 */
 	public char getChar() {
-		boolean[] src = new boolean[Character.SIZE];
-		get(src);
-		return deserializeChar(src);
+		return (char) read(Character.SIZE);
 	}
 
 	/**
@@ -433,9 +741,7 @@ public class BitBuffer {
 	 *          remaining in this buffer
 	 */
 	public short getShort() {
-		boolean[] src = new boolean[Short.SIZE];
-		get(src);
-		return deserializeShort(src);
+		return (short) read(Short.SIZE);
 	}
 
 	/**
@@ -450,9 +756,7 @@ public class BitBuffer {
 	 *          remaining in this buffer
 	 */
 	public int getInt() {
-		boolean[] src = new boolean[Integer.SIZE];
-		get(src);
-		return deserializeInt(src);
+		return (int) read(Integer.SIZE);
 	}
 
 	/**
@@ -467,9 +771,7 @@ public class BitBuffer {
 	 *          remaining in this buffer
 	 */
 	public long getLong() {
-		boolean[] src = new boolean[Long.SIZE];
-		get(src);
-		return deserializeLong(src);
+		return read(Long.SIZE);
 	}
 
 	/**
@@ -484,9 +786,7 @@ public class BitBuffer {
 	 *          remaining in this buffer
 	 */
 	public float getFloat() {
-		boolean[] src = new boolean[Float.SIZE];
-		get(src);
-		return deserializeFloat(src);
+		return Float.intBitsToFloat((int) read(Float.SIZE));
 	}
 
 	/**
@@ -501,9 +801,7 @@ public class BitBuffer {
 	 *          remaining in this buffer
 	 */
 	public double getDouble() {
-		boolean[] src = new boolean[Double.SIZE];
-		get(src);
-		return deserializeDouble(src);
+		return Double.longBitsToDouble(read(Double.SIZE));
 	}
 
 	/**
@@ -527,113 +825,453 @@ public class BitBuffer {
 	 *          If the given bit count is outside the allowed range 1-64
 	 */
 	public long getVarNumber(int bits, boolean signed) {
-		boolean[] src = new boolean[bits];
-		get(src);
-		return deserializeVarNumber(src, signed);
+		if (bits < 1 || bits > 64) throw new IllegalArgumentException("bit length must be between 1 and 64");
+		long value = read(bits);
+		//sign extension of the highest bit
+		if (signed && bits < 64) value = (value << (64 - bits)) >> (64 - bits);
+		return value;
+	}
+
+	//Absolute reads
+
+	/**
+	 * <p> Absolute <i>get</i> method. Reads the sixty-four bits at the given index,
+	 * composing them into a long value. The position is not changed. </p>
+	 *
+	 * @param index
+	 *         The index of the first bit
+	 *
+	 * @return  The long value at the given index
+	 *
+	 * @throws  IndexOutOfBoundsException
+	 *          If {@code index} is negative or fewer than sixty-four bits
+	 *          follow it in this buffer
+	 */
+	public long getLong(int index) {
+		return read(index, Long.SIZE);
+	}
+
+	/**
+	 * <p> Absolute <i>get</i> method. Reads the given amount of bits at the given index,
+	 * composing them into a numeric value. The position is not changed. </p>
+	 *
+	 * @param index
+	 *         The index of the first bit
+	 *
+	 * @param bits
+	 *         The amount of bits to be used to read the value. allowed range: 1-64 bits
+	 *
+	 * @param signed
+	 *         Marks the value as signed/unsigned
+	 *
+	 * @return  The numeric value at the given index
+	 *
+	 * @throws  IndexOutOfBoundsException
+	 *          If {@code index} is negative or fewer than the given bit count
+	 *          follow it in this buffer
+	 *
+	 * @throws IllegalArgumentException
+	 *          If the given bit count is outside the allowed range 1-64
+	 */
+	public long getVarNumber(int index, int bits, boolean signed) {
+		if (bits < 1 || bits > 64) throw new IllegalArgumentException("bit length must be between 1 and 64");
+		long value = read(index, bits);
+		if (signed && bits < 64) value = (value << (64 - bits)) >> (64 - bits);
+		return value;
 	}
 
 
 
+	//Variable length
+
+	/**
+	 * <p> Writes the given int as unsigned LEB128 varint: seven bits per byte,
+	 * lowest group first, with the highest bit of every byte set if another byte follows.
+	 * Values below 128 take one byte, negative values take five bytes.  </p>
+	 *
+	 * @param  value
+	 *         The int value to be written, treated as unsigned
+	 *
+	 * @return  This buffer for chained calls
+	 *
+	 * @throws  BufferOverflowException
+	 *          If there is insufficient space in this buffer
+	 */
+	public BitBuffer putVarInt(int value) {
+		return putVarLong(value & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * <p> Writes the given long as unsigned LEB128 varint, see {@link #putVarInt(int)}.
+	 * Negative values take ten bytes.  </p>
+	 *
+	 * @param  value
+	 *         The long value to be written, treated as unsigned
+	 *
+	 * @return  This buffer for chained calls
+	 *
+	 * @throws  BufferOverflowException
+	 *          If there is insufficient space in this buffer
+	 */
+	public BitBuffer putVarLong(long value) {
+		while ((value & ~0x7FL) != 0) {
+			write((value & 0x7F) | 0x80, Byte.SIZE);
+			value >>>= 7;
+		}
+		write(value, Byte.SIZE);
+		return this;
+	}
+
+	/**
+	 * <p> Writes the given int zigzag encoded as varint, so small negative
+	 * values stay small: 0, -1, 1, -2 are written as 0, 1, 2, 3.  </p>
+	 *
+	 * @param  value
+	 *         The int value to be written
+	 *
+	 * @return  This buffer for chained calls
+	 *
+	 * @throws  BufferOverflowException
+	 *          If there is insufficient space in this buffer
+	 */
+	public BitBuffer putZigZagInt(int value) {
+		return putVarInt((value << 1) ^ (value >> 31));
+	}
+
+	/**
+	 * <p> Writes the given long zigzag encoded as varint, see {@link #putZigZagInt(int)}.  </p>
+	 *
+	 * @param  value
+	 *         The long value to be written
+	 *
+	 * @return  This buffer for chained calls
+	 *
+	 * @throws  BufferOverflowException
+	 *          If there is insufficient space in this buffer
+	 */
+	public BitBuffer putZigZagLong(long value) {
+		return putVarLong((value << 1) ^ (value >> 63));
+	}
+
+	/**
+	 * <p> Writes the given positive value as Elias gamma code: as many zero bits
+	 * as the value has significant bits minus one, followed by the value itself.
+	 * 1 takes one bit, 2-3 take three bits, 4-7 take five bits and so on.  </p>
+	 *
+	 * @param  value
+	 *         The value to be written, at least 1
+	 *
+	 * @return  This buffer for chained calls
+	 *
+	 * @throws  BufferOverflowException
+	 *          If there is insufficient space in this buffer
+	 *
+	 * @throws  IllegalArgumentException
+	 *          If the value is lower than 1
+	 */
+	public BitBuffer putGamma(long value) {
+		if (value < 1) throw new IllegalArgumentException("gamma codes need a value of at least 1: " + value);
+		int zeros = 63 - Long.numberOfLeadingZeros(value);
+		if (zeros > 0) write(0, zeros);
+		write(value, zeros + 1);
+		return this;
+	}
+
+	/**
+	 * <p> Reads an unsigned LEB128 varint written by {@link #putVarInt(int)}.  </p>
+	 *
+	 * @return  The int value at the buffer's current position
+	 *
+	 * @throws  BufferUnderflowException
+	 *          If the buffer ends inside the varint
+	 *
+	 * @throws  IllegalStateException
+	 *          If the varint is longer than ten bytes or doesn't fit in 32 bits
+	 */
+	public int getVarInt() {
+		long value = getVarLong();
+		if ((value & ~0xFFFFFFFFL) != 0) throw new IllegalStateException("varint doesn't fit in 32 bits");
+		return (int) value;
+	}
+
+	/**
+	 * <p> Reads an unsigned LEB128 varint written by {@link #putVarLong(long)}.  </p>
+	 *
+	 * @return  The long value at the buffer's current position
+	 *
+	 * @throws  BufferUnderflowException
+	 *          If the buffer ends inside the varint
+	 *
+	 * @throws  IllegalStateException
+	 *          If the varint is longer than ten bytes
+	 */
+	public long getVarLong() {
+		long value = 0;
+		for (int shift = 0; shift < Long.SIZE; shift += 7) {
+			long b = read(Byte.SIZE);
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) return value;
+		}
+		throw new IllegalStateException("malformed varint");
+	}
+
+	/**
+	 * <p> Reads a zigzag encoded varint written by {@link #putZigZagInt(int)}.  </p>
+	 *
+	 * @return  The int value at the buffer's current position
+	 */
+	public int getZigZagInt() {
+		int value = getVarInt();
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * <p> Reads a zigzag encoded varint written by {@link #putZigZagLong(long)}.  </p>
+	 *
+	 * @return  The long value at the buffer's current position
+	 */
+	public long getZigZagLong() {
+		long value = getVarLong();
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * <p> Reads an Elias gamma code written by {@link #putGamma(long)}.  </p>
+	 *
+	 * @return  The value at the buffer's current position, at least 1
+	 *
+	 * @throws  BufferUnderflowException
+	 *          If the buffer ends inside the code
+	 *
+	 * @throws  IllegalStateException
+	 *          If the code has more than 62 leading zeros
+	 */
+	public long getGamma() {
+		int available = Math.min(Long.SIZE, storage.capacity() - pos);
+		if (available <= 0) throw new BufferUnderflowException();
+		int zeros = Long.numberOfLeadingZeros(storage.read(pos, available) << (Long.SIZE - available));
+		if (zeros >= available && available < Long.SIZE) throw new BufferUnderflowException();
+		if (zeros > 62) throw new IllegalStateException("malformed gamma code");
+		if (pos + 2 * zeros + 1 > storage.capacity()) throw new BufferUnderflowException();
+		pos += zeros;
+		return read(zeros + 1);
+	}
+
+	/**
+	 * <p> Writes the given value as offset from the range's minimum,
+	 * using exactly {@link Range#bits()} bits, and then increments the
+	 * position by that amount.  </p>
+	 *
+	 * @param  range
+	 *         The range of allowed values
+	 *
+	 * @param  value
+	 *         The value to be written
+	 *
+	 * @return  This buffer for chained calls
+	 *
+	 * @throws  BufferOverflowException
+	 *          If there is insufficient space in this buffer
+	 *
+	 * @throws  IllegalArgumentException
+	 *          If the value is outside the range
+	 */
+	public BitBuffer putRanged(Range range, long value) {
+		range.check(value);
+		int bits = range.bits();
+		if (bits > 0) write(value - range.min(), bits);
+		return this;
+	}
+
+	/**
+	 * <p> Reads a value written by {@link #putRanged(Range, long)}.  </p>
+	 *
+	 * @param  range
+	 *         The range of allowed values
+	 *
+	 * @return  The value at the buffer's current position
+	 *
+	 * @throws  BufferUnderflowException
+	 *          If there are fewer than {@link Range#bits()} bits
+	 *          remaining in this buffer
+	 *
+	 * @throws  IllegalStateException
+	 *          If the read value is outside the range
+	 */
+	public long getRanged(Range range) {
+		int bits = range.bits();
+		if (bits == 0) return range.min();
+		long value = read(bits) + range.min();
+		if (!range.contains(value)) throw new IllegalStateException("value " + value + " is outside the range " + range);
+		return value;
+	}
+
+	private void putLength(int length) {
+		lengthPrefix.write(this, length);
+	}
+
+	private int getLength() {
+		return lengthPrefix.read(this);
+	}
+
+
 	//Assigned
 
 	public void putAssigned(boolean[] value) {
-		putInt(value.length);
+		putLength(value.length);
 		put(value);
 	}
 
 	public void putAssigned(byte[] value) {
-		putInt(value.length);
+		putLength(value.length);
 		putByteArray(value);
 	}
 
 	public void putAssigned(char[] value) {
-		putInt(value.length);
-		for (char c : value) putChar(c);
+		putLength(value.length);
+		int p = reserveWrite((long) value.length * Character.SIZE);
+		int i = 0;
+		for (; i + 4 <= value.length; i += 4, p += Long.SIZE) {
+			storage.write(p, Long.SIZE, (long) value[i] << 48 | (long) value[i + 1] << 32 | (long) value[i + 2] << 16 | value[i + 3]);
+		}
+		for (; i < value.length; i++, p += Character.SIZE) storage.write(p, Character.SIZE, value[i]);
 	}
 
 	public void putAssigned(short[] value) {
-		putInt(value.length);
-		for (short i : value) putShort(i);
+		putLength(value.length);
+		int p = reserveWrite((long) value.length * Short.SIZE);
+		int i = 0;
+		for (; i + 4 <= value.length; i += 4, p += Long.SIZE) {
+			storage.write(p, Long.SIZE, (value[i] & 0xFFFFL) << 48 | (value[i + 1] & 0xFFFFL) << 32 | (value[i + 2] & 0xFFFFL) << 16 | (value[i + 3] & 0xFFFFL));
+		}
+		for (; i < value.length; i++, p += Short.SIZE) storage.write(p, Short.SIZE, value[i]);
 	}
 
 	public void putAssigned(int[] value) {
-		putInt(value.length);
-		for (int i : value) putInt(i);
+		putLength(value.length);
+		int p = reserveWrite((long) value.length * Integer.SIZE);
+		int i = 0;
+		for (; i + 2 <= value.length; i += 2, p += Long.SIZE) {
+			storage.write(p, Long.SIZE, (long) value[i] << 32 | (value[i + 1] & 0xFFFFFFFFL));
+		}
+		if (i < value.length) storage.write(p, Integer.SIZE, value[i]);
 	}
 
 	public void putAssigned(long[] value) {
-		putInt(value.length);
-		for (long l : value) putLong(l);
+		putLength(value.length);
+		int p = reserveWrite((long) value.length * Long.SIZE);
+		for (long l : value) {
+			storage.write(p, Long.SIZE, l);
+			p += Long.SIZE;
+		}
 	}
 
 	public void putAssigned(float[] value) {
-		putInt(value.length);
-		for (float v : value) putFloat(v);
+		putLength(value.length);
+		int p = reserveWrite((long) value.length * Float.SIZE);
+		int i = 0;
+		for (; i + 2 <= value.length; i += 2, p += Long.SIZE) {
+			storage.write(p, Long.SIZE, (long) Float.floatToIntBits(value[i]) << 32 | (Float.floatToIntBits(value[i + 1]) & 0xFFFFFFFFL));
+		}
+		if (i < value.length) storage.write(p, Float.SIZE, Float.floatToIntBits(value[i]));
 	}
 
 	public void putAssigned(double[] value) {
-		putInt(value.length);
-		for (double v : value) putDouble(v);
+		putLength(value.length);
+		int p = reserveWrite((long) value.length * Double.SIZE);
+		for (double v : value) {
+			storage.write(p, Double.SIZE, Double.doubleToLongBits(v));
+			p += Double.SIZE;
+		}
 	}
 
 
 	public boolean[] getAssigned() {
-		boolean[] dest = new boolean[getInt()];
+		int length = getLength();
+		//long, a length from the wire must not overflow the check and allocate before the read fails
+		if (length < 0 || (long) pos + length > storage.capacity()) throw new BufferUnderflowException();
+		boolean[] dest = new boolean[length];
 		get(dest);
 		return dest;
 	}
 
 	public byte[] getAssignedBytes() {
-		boolean[] bits = new boolean[getInt() * Byte.SIZE];
-		get(bits);
-		return deserializeByteArray(bits);
+		return getByteArray(getLength());
 	}
 
 	public char[] getAssignedChars() {
-		char[] result = new char[getInt()];
-		for (int i = 0; i < result.length; i++) {
-			result[i] = getChar();
+		int length = getLength();
+		int p = reserveRead((long) length * Character.SIZE);
+		char[] result = new char[length];
+		int i = 0;
+		for (; i + 4 <= length; i += 4, p += Long.SIZE) {
+			long word = storage.read(p, Long.SIZE);
+			result[i] = (char) (word >>> 48);
+			result[i + 1] = (char) (word >>> 32);
+			result[i + 2] = (char) (word >>> 16);
+			result[i + 3] = (char) word;
 		}
+		for (; i < length; i++, p += Character.SIZE) result[i] = (char) storage.read(p, Character.SIZE);
 		return result;
 	}
 
 	public short[] getAssignedShorts() {
-		short[] result = new short[getInt()];
-		for (int i = 0; i < result.length; i++) {
-			result[i] = getShort();
+		int length = getLength();
+		int p = reserveRead((long) length * Short.SIZE);
+		short[] result = new short[length];
+		int i = 0;
+		for (; i + 4 <= length; i += 4, p += Long.SIZE) {
+			long word = storage.read(p, Long.SIZE);
+			result[i] = (short) (word >>> 48);
+			result[i + 1] = (short) (word >>> 32);
+			result[i + 2] = (short) (word >>> 16);
+			result[i + 3] = (short) word;
 		}
+		for (; i < length; i++, p += Short.SIZE) result[i] = (short) storage.read(p, Short.SIZE);
 		return result;
 	}
 
 	public int[] getAssignedInts() {
-		int[] result = new int[getInt()];
-		for (int i = 0; i < result.length; i++) {
-			result[i] = getInt();
+		int length = getLength();
+		int p = reserveRead((long) length * Integer.SIZE);
+		int[] result = new int[length];
+		int i = 0;
+		for (; i + 2 <= length; i += 2, p += Long.SIZE) {
+			long word = storage.read(p, Long.SIZE);
+			result[i] = (int) (word >>> 32);
+			result[i + 1] = (int) word;
 		}
+		if (i < length) result[i] = (int) storage.read(p, Integer.SIZE);
 		return result;
 	}
 
 	public long[] getAssignedLongs() {
-		long[] result = new long[getInt()];
-		for (int i = 0; i < result.length; i++) {
-			result[i] = getLong();
-		}
+		int length = getLength();
+		int p = reserveRead((long) length * Long.SIZE);
+		long[] result = new long[length];
+		for (int i = 0; i < length; i++, p += Long.SIZE) result[i] = storage.read(p, Long.SIZE);
 		return result;
 	}
 
 	public float[] getAssignedFloats() {
-		float[] result = new float[getInt()];
-		for (int i = 0; i < result.length; i++) {
-			result[i] = getFloat();
+		int length = getLength();
+		int p = reserveRead((long) length * Float.SIZE);
+		float[] result = new float[length];
+		int i = 0;
+		for (; i + 2 <= length; i += 2, p += Long.SIZE) {
+			long word = storage.read(p, Long.SIZE);
+			result[i] = Float.intBitsToFloat((int) (word >>> 32));
+			result[i + 1] = Float.intBitsToFloat((int) word);
 		}
+		if (i < length) result[i] = Float.intBitsToFloat((int) storage.read(p, Float.SIZE));
 		return result;
 	}
 
 	public double[] getAssignedDoubles() {
-		double[] result = new double[getInt()];
-		for (int i = 0; i < result.length; i++) {
-			result[i] = getDouble();
-		}
+		int length = getLength();
+		int p = reserveRead((long) length * Double.SIZE);
+		double[] result = new double[length];
+		for (int i = 0; i < length; i++, p += Double.SIZE) result[i] = Double.longBitsToDouble(storage.read(p, Double.SIZE));
 		return result;
 	}
 
@@ -649,8 +1287,24 @@ public class BitBuffer {
 		return new UUID(getLong(), getLong());
 	}
 
+	/**
+	 * Reads the UUID at the given index, without changing the position
+	 * @param index the index of the first bit
+	 * @throws IndexOutOfBoundsException if fewer than 128 bits follow the index
+	 */
+	public UUID getUUID(int index) {
+		return new UUID(getLong(index), getLong(index + Long.SIZE));
+	}
+
+	/**
+	 * Writes the string as UTF-8 bytes, prefixed by their length
+	 */
+	public void putString(String value) {
+		putAssigned(value.getBytes(StandardCharsets.UTF_8));
+	}
+
 	public String getString() {
-		return new String(getByteArray(getInt()));
+		return new String(getByteArray(getLength()), StandardCharsets.UTF_8);
 	}
 
 
@@ -662,13 +1316,13 @@ public class BitBuffer {
 				"[pos=" +
 				pos +
 				" cap=" +
-				bits.length +
+				storage.capacity() +
 				"]";
 	}
 
 	public String toBitString() {
 		StringBuilder sb = new StringBuilder();
-		for (boolean b : array()) sb.append(b ? '1' : '0');
+		for (int i = 0; i < storage.capacity(); i++) sb.append(storage.get(i) ? '1' : '0');
 		return sb.toString();
 	}
 }
@@ -0,0 +1,71 @@
+package de.cyklon.monopoly.protocol.io;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps {@link BitBuffer#growable(int) growable} buffers around, so writers
+ * don't have to allocate and grow a new buffer for every packet.
+ *
+ * <p> A buffer must not be used anymore after it was released,
+ * including byte buffers returned by its {@link BitBuffer#toByteBuffer()}. </p>
+ */
+public class BitBufferPool {
+
+	private static final BitBufferPool SHARED = new BitBufferPool(64, 256 * Byte.SIZE, 64 * 1024 * Byte.SIZE);
+
+	private final Queue<BitBuffer> buffers = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger size = new AtomicInteger();
+
+	private final int maxPooled;
+	private final int initialCapacity;
+	private final int maxRetainedCapacity;
+
+	/**
+	 * @param maxPooled the maximum amount of buffers kept in the pool
+	 * @param initialCapacity the capacity of new buffers, in bits
+	 * @param maxRetainedCapacity buffers that grew above this capacity, in bits, are not pooled again
+	 */
+	public BitBufferPool(int maxPooled, int initialCapacity, int maxRetainedCapacity) {
+		this.maxPooled = maxPooled;
+		this.initialCapacity = initialCapacity;
+		this.maxRetainedCapacity = maxRetainedCapacity;
+	}
+
+	/**
+	 * @return the pool shared by the protocol
+	 */
+	public static BitBufferPool shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Takes a growable buffer from the pool, or allocates a new one if the pool is empty.
+	 *
+	 * @return a growable buffer with position zero and the default length prefix
+	 */
+	public BitBuffer acquire() {
+		BitBuffer buffer = buffers.poll();
+		if (buffer == null) return BitBuffer.growable(initialCapacity);
+		size.decrementAndGet();
+		buffer.rewind();
+		buffer.lengthPrefix(LengthPrefix.INT);
+		return buffer;
+	}
+
+	/**
+	 * Returns a buffer to the pool. Buffers that aren't growable,
+	 * grew too big or don't fit in the pool anymore are dropped.
+	 *
+	 * @param buffer the buffer to return
+	 */
+	public void release(BitBuffer buffer) {
+		if (!buffer.isGrowable() || buffer.capacity() > maxRetainedCapacity) return;
+		if (size.incrementAndGet() > maxPooled) {
+			size.decrementAndGet();
+			return;
+		}
+		buffers.offer(buffer);
+	}
+}
@@ -0,0 +1,88 @@
+package de.cyklon.monopoly.protocol.io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Backing store of a {@link BitBuffer}.
+ *
+ * <p> Bits are addressed from the most significant bit of the first byte,
+ * so bit {@code 0} is the highest bit of byte {@code 0} and bit {@code 8}
+ * is the highest bit of byte {@code 1}. Implementations don't check bounds,
+ * that is done by the buffer. </p>
+ */
+interface BitStorage {
+
+	/**
+	 * @return the amount of bits this storage can hold
+	 */
+	int capacity();
+
+	boolean get(int index);
+
+	void set(int index, boolean value);
+
+	/**
+	 * Reads {@code bits} bits starting at {@code index}, the first bit
+	 * ends up as the most significant bit of the result.
+	 *
+	 * @param index the index of the first bit
+	 * @param bits the amount of bits to read, 1-64
+	 * @return the bits right aligned in a long, the upper bits are zero
+	 */
+	long read(int index, int bits);
+
+	/**
+	 * Writes the lowest {@code bits} bits of {@code value} starting at {@code index}.
+	 * The other bits of {@code value} are ignored.
+	 *
+	 * @param index the index of the first bit
+	 * @param bits the amount of bits to write, 1-64
+	 * @param value the bits to write, right aligned
+	 */
+	void write(int index, int bits, long value);
+
+	/**
+	 * Reads {@code length} bytes starting at bit {@code index}, eight bytes per {@link #read(int, int) read}.
+	 * Storages backed by bytes copy directly if {@code index} is a multiple of eight.
+	 *
+	 * @param index the index of the first bit
+	 * @param dst the array to read into
+	 * @param offset the index in {@code dst} of the first byte
+	 * @param length the amount of bytes
+	 */
+	default void readBytes(int index, byte[] dst, int offset, int length) {
+		int i = 0;
+		for (; i + 8 <= length; i += 8, index += Long.SIZE) Serializer.putLong(dst, offset + i, read(index, Long.SIZE));
+		for (; i < length; i++, index += Byte.SIZE) dst[offset + i] = (byte) read(index, Byte.SIZE);
+	}
+
+	/**
+	 * Writes {@code length} bytes starting at bit {@code index}, eight bytes per {@link #write(int, int, long) write}.
+	 * Storages backed by bytes copy directly if {@code index} is a multiple of eight.
+	 *
+	 * @param index the index of the first bit
+	 * @param src the array to write from
+	 * @param offset the index in {@code src} of the first byte
+	 * @param length the amount of bytes
+	 */
+	default void writeBytes(int index, byte[] src, int offset, int length) {
+		int i = 0;
+		for (; i + 8 <= length; i += 8, index += Long.SIZE) write(index, Long.SIZE, Serializer.getLong(src, offset + i));
+		for (; i < length; i++, index += Byte.SIZE) write(index, Byte.SIZE, src[offset + i]);
+	}
+
+	/**
+	 * @return the stored bits packed into bytes, the last byte is padded with zeros
+	 */
+	byte[] toByteArray();
+
+	/**
+	 * Returns the first bytes of this storage. Storages backed by bytes share them
+	 * with the returned buffer, others copy.
+	 *
+	 * @param length the amount of bytes
+	 * @return a buffer with position zero and the given amount of bytes remaining
+	 */
+	ByteBuffer asByteBuffer(int length);
+
+}
@@ -0,0 +1,94 @@
+package de.cyklon.monopoly.protocol.io;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps byte arrays around in size classes, every class holds arrays of one power of two.
+ *
+ * <p> {@link #acquire(int)} returns an array of the smallest class that fits, so the array
+ * can be longer than requested. Requests above the largest class are allocated with their
+ * exact size and are not pooled again. An array must not be used anymore after it was released. </p>
+ */
+public class ByteArrayPool {
+
+	private static final int MIN_SHIFT = 6;
+
+	private static final ByteArrayPool SHARED = new ByteArrayPool(64 * 1024, 32);
+
+	private final Queue<byte[]>[] classes;
+	private final AtomicInteger[] sizes;
+	private final int maxPooledPerClass;
+
+	/**
+	 * @param maxSize the size of the largest class, rounded up to a power of two
+	 * @param maxPooledPerClass the maximum amount of arrays kept per class
+	 */
+	public ByteArrayPool(int maxSize, int maxPooledPerClass) {
+		if (maxSize <= 0) throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+		int count = Math.max(sizeClass(maxSize), 0) + 1;
+		//generic arrays can't be created, every element is a queue of byte arrays
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		Queue<byte[]>[] classes = new Queue[count];
+		this.classes = classes;
+		this.sizes = new AtomicInteger[count];
+		for (int i = 0; i < count; i++) {
+			classes[i] = new ConcurrentLinkedQueue<>();
+			sizes[i] = new AtomicInteger();
+		}
+		this.maxPooledPerClass = maxPooledPerClass;
+	}
+
+	/**
+	 * @return the pool shared by the protocol
+	 */
+	public static ByteArrayPool shared() {
+		return SHARED;
+	}
+
+	private static int sizeClass(int size) {
+		if (size <= 1 << MIN_SHIFT) return 0;
+		return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+	}
+
+	/**
+	 * @return the size of the largest class
+	 */
+	public int maxSize() {
+		return 1 << (MIN_SHIFT + classes.length - 1);
+	}
+
+	/**
+	 * Takes an array from the pool, or allocates a new one if its class is empty.
+	 *
+	 * @param size the minimum length of the array
+	 * @return an array of at least {@code size} bytes, its content is undefined
+	 */
+	public byte[] acquire(int size) {
+		int c = sizeClass(size);
+		if (c >= classes.length) return new byte[size];
+		byte[] array = classes[c].poll();
+		if (array == null) return new byte[1 << (MIN_SHIFT + c)];
+		sizes[c].decrementAndGet();
+		return array;
+	}
+
+	/**
+	 * Returns an array to the pool. Arrays that weren't acquired from
+	 * a pool class or don't fit in their class anymore are dropped.
+	 *
+	 * @param array the array to return
+	 */
+	public void release(byte[] array) {
+		int length = array.length;
+		if (Integer.bitCount(length) != 1 || length < 1 << MIN_SHIFT) return;
+		int c = sizeClass(length);
+		if (c >= classes.length) return;
+		if (sizes[c].incrementAndGet() > maxPooledPerClass) {
+			sizes[c].decrementAndGet();
+			return;
+		}
+		classes[c].offer(array);
+	}
+}
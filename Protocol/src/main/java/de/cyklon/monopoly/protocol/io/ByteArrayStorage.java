@@ -0,0 +1,66 @@
+package de.cyklon.monopoly.protocol.io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Works in place on a region of a byte array.
+ */
+final class ByteArrayStorage extends ByteStorage {
+
+	private final byte[] array;
+	private final int offset;
+
+	ByteArrayStorage(byte[] array, int offset, int length) {
+		super(length);
+		this.array = array;
+		this.offset = offset;
+	}
+
+	@Override
+	protected byte getByte(int index) {
+		return array[offset + index];
+	}
+
+	@Override
+	protected void putByte(int index, byte value) {
+		array[offset + index] = value;
+	}
+
+	@Override
+	public void readBytes(int index, byte[] dst, int offset, int length) {
+		if ((index & 7) == 0) System.arraycopy(array, this.offset + (index >>> 3), dst, offset, length);
+		else super.readBytes(index, dst, offset, length);
+	}
+
+	@Override
+	public void writeBytes(int index, byte[] src, int offset, int length) {
+		if ((index & 7) == 0) System.arraycopy(src, offset, array, this.offset + (index >>> 3), length);
+		else super.writeBytes(index, src, offset, length);
+	}
+
+	@Override
+	public byte[] toByteArray() {
+		byte[] bytes = new byte[capacity() >>> 3];
+		System.arraycopy(array, offset, bytes, 0, bytes.length);
+		return bytes;
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer(int length) {
+		return ByteBuffer.wrap(array, offset, length).slice();
+	}
+
+	/**
+	 * Copies the content into a storage of at least twice the size
+	 *
+	 * @param minCapacity the minimum capacity of the new storage, in bits
+	 * @return the new storage
+	 */
+	ByteArrayStorage grow(int minCapacity) {
+		int length = capacity() >>> 3;
+		int newLength = Math.max(Math.max(length << 1, 16), (minCapacity + 7) >>> 3);
+		byte[] bytes = new byte[newLength];
+		System.arraycopy(array, offset, bytes, 0, length);
+		return new ByteArrayStorage(bytes, 0, newLength);
+	}
+}
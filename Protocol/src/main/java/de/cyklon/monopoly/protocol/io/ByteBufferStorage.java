@@ -0,0 +1,53 @@
+package de.cyklon.monopoly.protocol.io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Works in place on the remaining bytes of a heap or direct {@link ByteBuffer}.
+ * Only absolute accessors are used, so the position of the buffer is never touched.
+ */
+final class ByteBufferStorage extends ByteStorage {
+
+	private final ByteBuffer buffer;
+	private final int offset;
+
+	ByteBufferStorage(ByteBuffer buffer) {
+		super(buffer.remaining());
+		this.buffer = buffer;
+		this.offset = buffer.position();
+	}
+
+	@Override
+	protected byte getByte(int index) {
+		return buffer.get(offset + index);
+	}
+
+	@Override
+	protected void putByte(int index, byte value) {
+		buffer.put(offset + index, value);
+	}
+
+	@Override
+	public void readBytes(int index, byte[] dst, int offset, int length) {
+		if ((index & 7) == 0) buffer.get(this.offset + (index >>> 3), dst, offset, length);
+		else super.readBytes(index, dst, offset, length);
+	}
+
+	@Override
+	public void writeBytes(int index, byte[] src, int offset, int length) {
+		if ((index & 7) == 0) buffer.put(this.offset + (index >>> 3), src, offset, length);
+		else super.writeBytes(index, src, offset, length);
+	}
+
+	@Override
+	public byte[] toByteArray() {
+		byte[] bytes = new byte[capacity() >>> 3];
+		buffer.get(offset, bytes);
+		return bytes;
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer(int length) {
+		return buffer.slice(offset, length);
+	}
+}
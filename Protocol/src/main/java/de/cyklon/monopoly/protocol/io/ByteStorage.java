@@ -0,0 +1,83 @@
+package de.cyklon.monopoly.protocol.io;
+
+/**
+ * Base of the storages that work in place on bytes someone else owns.
+ * Subclasses only provide absolute access to the bytes.
+ */
+abstract class ByteStorage implements BitStorage {
+
+	private final int capacity;
+
+	protected ByteStorage(int length) {
+		this.capacity = length * Byte.SIZE;
+	}
+
+	protected abstract byte getByte(int index);
+
+	protected abstract void putByte(int index, byte value);
+
+	@Override
+	public int capacity() {
+		return capacity;
+	}
+
+	@Override
+	public boolean get(int index) {
+		return (getByte(index >>> 3) & (0x80 >>> (index & 7))) != 0;
+	}
+
+	@Override
+	public void set(int index, boolean value) {
+		int i = index >>> 3;
+		int mask = 0x80 >>> (index & 7);
+		byte b = getByte(i);
+		putByte(i, (byte) (value ? b | mask : b & ~mask));
+	}
+
+	@Override
+	public long read(int index, int bits) {
+		int i = index >>> 3;
+		int skip = index & 7;
+		int total = skip + bits;
+		int bytes = (total + 7) >>> 3;
+
+		long value = 0;
+		for (int n = Math.min(bytes, 8), end = i + n; i < end; i++) {
+			value = (value << 8) | (getByte(i) & 0xFF);
+		}
+		if (bytes <= 8) {
+			value >>>= (bytes << 3) - total;
+			return bits == 64 ? value : value & ((1L << bits) - 1);
+		}
+		//the bits span nine bytes, which only happens with a skip
+		return ((value << skip) | ((getByte(i) & 0xFF) >>> (8 - skip))) >>> (64 - bits);
+	}
+
+	@Override
+	public void write(int index, int bits, long value) {
+		int i = index >>> 3;
+		if ((index & 7) == 0 && (bits & 7) == 0) {
+			for (int shift = bits - 8; shift >= 0; shift -= 8) putByte(i++, (byte) (value >>> shift));
+			return;
+		}
+		int free = 8 - (index & 7);
+		int remaining = bits;
+		while (remaining > 0) {
+			int n = Math.min(free, remaining);
+			int shift = free - n;
+			int mask = ((1 << n) - 1) << shift;
+			int chunk = ((int) (value >>> (remaining - n)) << shift) & mask;
+			putByte(i, (byte) ((getByte(i) & ~mask) | chunk));
+			remaining -= n;
+			free = 8;
+			i++;
+		}
+	}
+
+	@Override
+	public byte[] toByteArray() {
+		byte[] bytes = new byte[capacity >>> 3];
+		for (int i = 0; i < bytes.length; i++) bytes[i] = getByte(i);
+		return bytes;
+	}
+}
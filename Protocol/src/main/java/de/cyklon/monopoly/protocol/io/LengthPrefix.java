@@ -0,0 +1,64 @@
+package de.cyklon.monopoly.protocol.io;
+
+/**
+ * How a {@link BitBuffer} writes the length in front of strings and arrays.
+ * Writer and reader have to use the same length prefix.
+ *
+ * @see BitBuffer#lengthPrefix(LengthPrefix)
+ */
+public enum LengthPrefix {
+
+	/**
+	 * A 32 bit int, every length costs four bytes
+	 */
+	INT {
+		@Override
+		void write(BitBuffer buffer, int length) {
+			buffer.putInt(length);
+		}
+
+		@Override
+		int read(BitBuffer buffer) {
+			return buffer.getInt();
+		}
+	},
+
+	/**
+	 * An unsigned LEB128 varint, lengths below 128 cost one byte
+	 *
+	 * @see BitBuffer#putVarInt(int)
+	 */
+	VARINT {
+		@Override
+		void write(BitBuffer buffer, int length) {
+			buffer.putVarInt(length);
+		}
+
+		@Override
+		int read(BitBuffer buffer) {
+			return buffer.getVarInt();
+		}
+	},
+
+	/**
+	 * An Elias gamma code of the length plus one, a length of zero costs one bit
+	 * and lengths below 15 cost at most seven bits
+	 *
+	 * @see BitBuffer#putGamma(long)
+	 */
+	GAMMA {
+		@Override
+		void write(BitBuffer buffer, int length) {
+			buffer.putGamma(length + 1L);
+		}
+
+		@Override
+		int read(BitBuffer buffer) {
+			return Math.toIntExact(buffer.getGamma() - 1);
+		}
+	};
+
+	abstract void write(BitBuffer buffer, int length);
+
+	abstract int read(BitBuffer buffer);
+}
@@ -0,0 +1,87 @@
+package de.cyklon.monopoly.protocol.io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Packs 64 bits into every {@code long} word.
+ * Bit {@code 0} of the storage is the highest bit of the first word.
+ */
+final class LongArrayStorage implements BitStorage {
+
+	private final long[] words;
+	private final int capacity;
+
+	LongArrayStorage(int capacity) {
+		this.words = new long[(capacity + 63) >>> 6];
+		this.capacity = capacity;
+	}
+
+	static LongArrayStorage of(byte[] bytes) {
+		LongArrayStorage storage = new LongArrayStorage(bytes.length * Byte.SIZE);
+		long[] words = storage.words;
+		for (int i = 0; i < bytes.length; i++) {
+			words[i >>> 3] |= (bytes[i] & 0xFFL) << (56 - ((i & 7) << 3));
+		}
+		return storage;
+	}
+
+	private static long mask(int index) {
+		return 1L << (63 - (index & 63));
+	}
+
+	@Override
+	public int capacity() {
+		return capacity;
+	}
+
+	@Override
+	public boolean get(int index) {
+		return (words[index >>> 6] & mask(index)) != 0;
+	}
+
+	@Override
+	public void set(int index, boolean value) {
+		if (value) words[index >>> 6] |= mask(index);
+		else words[index >>> 6] &= ~mask(index);
+	}
+
+	@Override
+	public long read(int index, int bits) {
+		int word = index >>> 6;
+		int offset = index & 63;
+		long value = words[word] << offset;
+		if (offset + bits > 64) value |= words[word + 1] >>> (64 - offset);
+		return value >>> (64 - bits);
+	}
+
+	@Override
+	public void write(int index, int bits, long value) {
+		int word = index >>> 6;
+		int offset = index & 63;
+		int end = offset + bits;
+		if (bits < 64) value &= (1L << bits) - 1;
+		if (end <= 64) {
+			int shift = 64 - end;
+			long mask = (bits == 64 ? -1L : (1L << bits) - 1) << shift;
+			words[word] = (words[word] & ~mask) | (value << shift);
+		} else {
+			int rest = end - 64;
+			words[word] = (words[word] & ~(-1L >>> offset)) | (value >>> rest);
+			words[word + 1] = (words[word + 1] & (-1L >>> rest)) | (value << (64 - rest));
+		}
+	}
+
+	@Override
+	public byte[] toByteArray() {
+		byte[] bytes = new byte[(capacity + 7) >>> 3];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) (words[i >>> 3] >>> (56 - ((i & 7) << 3)));
+		}
+		return bytes;
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer(int length) {
+		return ByteBuffer.wrap(toByteArray(), 0, length).slice();
+	}
+}
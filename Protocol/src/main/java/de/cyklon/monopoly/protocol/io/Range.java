@@ -0,0 +1,63 @@
+package de.cyklon.monopoly.protocol.io;
+
+/**
+ * A closed range of allowed values for a numeric field.
+ *
+ * <p> Values are written as offset from {@link #min()} in exactly as many bits
+ * as the range needs, a field from 2 to 8 takes three bits and a field
+ * from 0 to 39 takes six. Packet classes declare their ranges as constants
+ * and write the fields with {@link BitBuffer#putRanged(Range, long)}. </p>
+ */
+public final class Range {
+
+	private final long min;
+	private final long max;
+	private final int bits;
+
+	private Range(long min, long max) {
+		this.min = min;
+		this.max = max;
+		this.bits = Serializer.requiredBits(min, max);
+	}
+
+	/**
+	 * @param min the lowest allowed value, inclusive
+	 * @param max the highest allowed value, inclusive
+	 * @return the range
+	 * @throws IllegalArgumentException if min is greater than max
+	 */
+	public static Range of(long min, long max) {
+		return new Range(min, max);
+	}
+
+	public long min() {
+		return min;
+	}
+
+	public long max() {
+		return max;
+	}
+
+	/**
+	 * @return the amount of bits a value of this range takes
+	 */
+	public int bits() {
+		return bits;
+	}
+
+	public boolean contains(long value) {
+		return value >= min && value <= max;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the value is outside this range
+	 */
+	public void check(long value) {
+		if (!contains(value)) throw new IllegalArgumentException("value " + value + " is outside the range " + this);
+	}
+
+	@Override
+	public String toString() {
+		return min + "-" + max;
+	}
+}
@@ -2,12 +2,14 @@ package de.cyklon.monopoly.protocol.io;
 
 import lombok.experimental.UtilityClass;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
 @UtilityClass
 class Serializer {
 
-	public static void main(String[] args) {
-		calculateRange(-40, 10);
-	}
+	private final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
 
 	public boolean[] serializeByteArray(byte[] bytes) {
 		boolean[] bits = new boolean[bytes.length * 8];
@@ -19,6 +21,20 @@ class Serializer {
 		return bits;
 	}
 
+	/**
+	 * Reads eight bytes of the array as big endian long
+	 */
+	public long getLong(byte[] bytes, int index) {
+		return (long) LONG_VIEW.get(bytes, index);
+	}
+
+	/**
+	 * Writes the long into eight bytes of the array in big endian order
+	 */
+	public void putLong(byte[] bytes, int index, long value) {
+		LONG_VIEW.set(bytes, index, value);
+	}
+
 	public byte[] deserializeByteArray(boolean[] bits) {
 		int byteLength = (bits.length + 7) / 8;
 		byte[] bytes = new byte[byteLength];
@@ -48,17 +64,26 @@ class Serializer {
 		return value;
 	}
 
-	public static boolean[] serializeVarNumber(long value, int bitCount, boolean signed) {
+	/**
+	 * Checks that the value can be stored in the given amount of bits
+	 * @throws IllegalArgumentException if the value doesn't fit, or the bit count is outside 1-64
+	 */
+	public static void checkVarNumber(long value, int bitCount, boolean signed) {
 		if (bitCount < 1 || bitCount > 64)
 			throw new IllegalArgumentException("bitCount must be between 1 and 64");
 
 		if (!signed && value < 0) throw new IllegalArgumentException("negative numbers arent allowed on unsigned numbers");
+		if (bitCount == 64) return;
 
 		long minValue = signed ? -(1L << (bitCount - 1)) : 0;
 		long maxValue = signed ? ((1L << (bitCount - 1)) - 1) : ((1L << bitCount) - 1);
 
 		if (value < minValue || value > maxValue)
 			throw new IllegalArgumentException("value " + value + " doesn't fit in " + bitCount + " bits (signed=" + signed + ") allowed range: " + minValue + "-" + maxValue);
+	}
+
+	public static boolean[] serializeVarNumber(long value, int bitCount, boolean signed) {
+		checkVarNumber(value, bitCount, signed);
 
 		if (signed && value < 0) {
 			value += 1L << bitCount;
@@ -94,44 +119,16 @@ class Serializer {
 		return value;
 	}
 
-	public void calculateRange(int bits, boolean signed) {
-		long min, max;
-
-		if (signed) {
-			min = -(1L << (bits - 1));
-			max = (1L << (bits -1)) -1;
-		} else {
-			min = 0;
-			max = (1L << bits) -1;
-		}
-
-		System.out.println("Signed: " + signed);
-		System.out.println("Bits: " + bits);
-		System.out.println("Range: " + min + "-" + max);
-	}
-
-	public void calculateRange(long minValue, long maxValue) {
+	/**
+	 * Calculates the minimum amount of bits needed to store every value
+	 * of the range as offset from {@code minValue}
+	 * @return the amount of bits, 0 if the range only contains one value
+	 * @throws IllegalArgumentException if minValue is greater than maxValue
+	 */
+	public int requiredBits(long minValue, long maxValue) {
 		if (minValue > maxValue) throw new IllegalArgumentException("minValue must be lower than maxValue");
-
-		boolean signed = minValue < 0;
-
-		long min, max;
-
-		int bits;
-		if (signed) {
-			long absMax = Math.max(Math.abs(minValue), Math.abs(maxValue));
-			bits = 65 - Long.numberOfLeadingZeros(absMax);
-			min = -(1L << (bits - 1));
-			max = (1L << (bits -1)) -1;
-		} else {
-			bits = 64 - Long.numberOfLeadingZeros(maxValue);
-			min = 0;
-			max = (1L << bits) -1;
-		}
-
-		System.out.println("Signed: " + signed);
-		System.out.println("Required Bits: " + bits);
-		System.out.println("Range: " + min + "-" + max);
+		//the span is unsigned, it overflows for ranges wider than Long.MAX_VALUE
+		return 64 - Long.numberOfLeadingZeros(maxValue - minValue);
 	}
 
 	public static boolean[] serializeByte(byte value) {
@@ -0,0 +1,61 @@
+package de.cyklon.monopoly.protocol.io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A window of another storage, starting at any bit.
+ */
+final class SliceStorage implements BitStorage {
+
+	private final BitStorage storage;
+	private final int offset;
+	private final int capacity;
+
+	SliceStorage(BitStorage storage, int offset, int capacity) {
+		this.storage = storage;
+		this.offset = offset;
+		this.capacity = capacity;
+	}
+
+	@Override
+	public int capacity() {
+		return capacity;
+	}
+
+	@Override
+	public boolean get(int index) {
+		return storage.get(offset + index);
+	}
+
+	@Override
+	public void set(int index, boolean value) {
+		storage.set(offset + index, value);
+	}
+
+	@Override
+	public long read(int index, int bits) {
+		return storage.read(offset + index, bits);
+	}
+
+	@Override
+	public void write(int index, int bits, long value) {
+		storage.write(offset + index, bits, value);
+	}
+
+	@Override
+	public byte[] toByteArray() {
+		byte[] bytes = new byte[(capacity + 7) >>> 3];
+		int full = capacity >>> 3;
+		for (int i = 0; i < full; i++) bytes[i] = (byte) read(i << 3, Byte.SIZE);
+		int rest = capacity & 7;
+		if (rest != 0) bytes[full] = (byte) (read(full << 3, rest) << (8 - rest));
+		return bytes;
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer(int length) {
+		if ((offset & 7) != 0) return ByteBuffer.wrap(toByteArray(), 0, length).slice();
+		int start = offset >>> 3;
+		return storage.asByteBuffer(start + length).slice(start, length);
+	}
+}
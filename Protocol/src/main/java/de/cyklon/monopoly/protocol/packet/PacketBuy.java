@@ -0,0 +1,26 @@
+package de.cyklon.monopoly.protocol.packet;
+
+import de.cyklon.monopoly.processor.Codec;
+import de.cyklon.monopoly.processor.Ranged;
+import de.cyklon.monopoly.protocol.GamePacket;
+import de.cyklon.monopoly.protocol.Packet;
+import de.cyklon.monopoly.protocol.io.BitBuffer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.UUID;
+
+@Codec
+@Getter
+@RequiredArgsConstructor
+public class PacketBuy extends Packet implements GamePacket {
+
+	final UUID gameId;
+	@Ranged(min = 0, max = 39)
+	final int field;
+
+	@Override
+	protected void write(BitBuffer buffer) {
+		PacketBuyCodec.write(this, buffer);
+	}
+}
@@ -1,35 +1,24 @@
 package de.cyklon.monopoly.protocol.packet;
 
+import de.cyklon.monopoly.processor.Codec;
+import de.cyklon.monopoly.processor.Ranged;
 import de.cyklon.monopoly.protocol.Packet;
 import de.cyklon.monopoly.protocol.io.BitBuffer;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
+@Codec
+@Getter
 @RequiredArgsConstructor
 public class PacketCreateGame extends Packet {
 
-	private final String playerName;
-	private final int maxPlayers;
-	private final boolean privateGame;
-
-	public PacketCreateGame(byte[] data) {
-		super(data);
-		BitBuffer buffer = BitBuffer.wrap(data);
-		this.playerName = new String(buffer.getAssignedBytes());
-		this.maxPlayers = buffer.getInt();
-		this.privateGame = buffer.get();
-	}
+	final String playerName;
+	@Ranged(min = 2, max = 8)
+	final int maxPlayers;
+	final boolean privateGame;
 
 	@Override
-	protected byte[] data() {
-		byte[] name = playerName.getBytes();
-
-		BitBuffer buffer = BitBuffer.allocate((4 + name.length + 4 + 1)*8);
-
-		buffer.putAssigned(name);
-
-		buffer.putInt(maxPlayers);
-
-		buffer.put(privateGame);
-		return buffer.asByteArray();
+	protected void write(BitBuffer buffer) {
+		PacketCreateGameCodec.write(this, buffer);
 	}
 }
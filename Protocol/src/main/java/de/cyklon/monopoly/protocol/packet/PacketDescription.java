@@ -0,0 +1,29 @@
+package de.cyklon.monopoly.protocol.packet;
+
+import de.cyklon.monopoly.processor.Codec;
+import de.cyklon.monopoly.processor.Ranged;
+import de.cyklon.monopoly.protocol.Packet;
+import de.cyklon.monopoly.protocol.io.BitBuffer;
+import lombok.RequiredArgsConstructor;
+
+import java.util.UUID;
+
+@Codec
+@RequiredArgsConstructor
+public class PacketDescription extends Packet {
+
+	final UUID playerId;
+	@Ranged(min = 0, max = 39)
+	final int field;
+	final String description;
+
+	@Override
+	protected void write(BitBuffer buffer) {
+		PacketDescriptionCodec.write(this, buffer);
+	}
+
+	@Override
+	public boolean isDroppable() {
+		return true;
+	}
+}
@@ -1,28 +1,24 @@
 package de.cyklon.monopoly.protocol.packet;
 
+import de.cyklon.monopoly.processor.Codec;
+import de.cyklon.monopoly.protocol.GamePacket;
 import de.cyklon.monopoly.protocol.Packet;
 import de.cyklon.monopoly.protocol.io.BitBuffer;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
 import java.util.UUID;
 
+@Codec
+@Getter
 @RequiredArgsConstructor
-public class PacketJoinGame extends Packet {
+public class PacketJoinGame extends Packet implements GamePacket {
 
-	private final UUID gameId;
-	private final String playerName;
-
-	public PacketJoinGame(byte[] data) {
-		super(data);
-		BitBuffer buffer = BitBuffer.wrap(data);
-		this.gameId = buffer.getUUID();
-		this.playerName = buffer.getString();
-	}
+	final UUID gameId;
+	final String playerName;
 
 	@Override
-	protected byte[] data() {
-		byte[] name = playerName.getBytes();
-
-		return new byte[0];
+	protected void write(BitBuffer buffer) {
+		PacketJoinGameCodec.write(this, buffer);
 	}
 }
@@ -0,0 +1,24 @@
+package de.cyklon.monopoly.protocol.packet;
+
+import de.cyklon.monopoly.processor.Codec;
+import de.cyklon.monopoly.protocol.Packet;
+import de.cyklon.monopoly.protocol.io.BitBuffer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.UUID;
+
+@Codec
+@Getter
+@RequiredArgsConstructor
+public class PacketJoinResult extends Packet {
+
+	final UUID gameId;
+	final UUID playerId;
+	final boolean accepted;
+
+	@Override
+	protected void write(BitBuffer buffer) {
+		PacketJoinResultCodec.write(this, buffer);
+	}
+}
@@ -0,0 +1,28 @@
+package de.cyklon.monopoly.protocol.packet;
+
+import de.cyklon.monopoly.processor.Codec;
+import de.cyklon.monopoly.processor.Ranged;
+import de.cyklon.monopoly.protocol.Packet;
+import de.cyklon.monopoly.protocol.io.BitBuffer;
+import lombok.RequiredArgsConstructor;
+
+import java.util.UUID;
+
+@Codec
+@RequiredArgsConstructor
+public class PacketMove extends Packet {
+
+	final UUID playerId;
+	@Ranged(min = 0, max = 39)
+	final int field;
+
+	@Override
+	protected void write(BitBuffer buffer) {
+		PacketMoveCodec.write(this, buffer);
+	}
+
+	@Override
+	public Object getCoalesceKey() {
+		return playerId;
+	}
+}
@@ -0,0 +1,37 @@
+package de.cyklon.monopoly.protocol.packet;
+
+import de.cyklon.monopoly.processor.Codec;
+import de.cyklon.monopoly.protocol.Packet;
+import de.cyklon.monopoly.protocol.io.BitBuffer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Sent by the server to check that the client is alive, the client answers with the same packet.
+ * Clients that send nothing for too long are disconnected
+ */
+@Codec
+@Getter
+@RequiredArgsConstructor
+public class PacketPing extends Packet {
+
+	/**
+	 * The time the ping was sent, in milliseconds
+	 */
+	final long time;
+
+	@Override
+	protected void write(BitBuffer buffer) {
+		PacketPingCodec.write(this, buffer);
+	}
+
+	@Override
+	public boolean isDroppable() {
+		return true;
+	}
+
+	@Override
+	public boolean isReplayable() {
+		return false;
+	}
+}
@@ -0,0 +1,32 @@
+package de.cyklon.monopoly.protocol.packet;
+
+import de.cyklon.monopoly.processor.Codec;
+import de.cyklon.monopoly.protocol.Packet;
+import de.cyklon.monopoly.protocol.io.BitBuffer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Sent by a client after it reconnected, once the {@link PacketSession} of the new connection arrived.
+ * The server answers with the {@link PacketSession} of the resumed session followed by the packets
+ * the client missed, or with the new session if the old one can't be resumed
+ */
+@Codec
+@Getter
+@RequiredArgsConstructor
+public class PacketResume extends Packet {
+
+	final UUID clientId;
+	final UUID token;
+	/**
+	 * The amount of {@link Packet#isReplayable() replayable} packets the client received in the session
+	 */
+	final long received;
+
+	@Override
+	protected void write(BitBuffer buffer) {
+		PacketResumeCodec.write(this, buffer);
+	}
+}
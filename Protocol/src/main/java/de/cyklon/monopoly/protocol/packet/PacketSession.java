@@ -0,0 +1,42 @@
+package de.cyklon.monopoly.protocol.packet;
+
+import de.cyklon.monopoly.processor.Codec;
+import de.cyklon.monopoly.protocol.Packet;
+import de.cyklon.monopoly.protocol.io.BitBuffer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * The session of a connection, sent by the server as first packet of every connection
+ * and as answer to {@link PacketResume}
+ */
+@Codec
+@Getter
+@RequiredArgsConstructor
+public class PacketSession extends Packet {
+
+	/**
+	 * The id of the client, which is also its player id
+	 */
+	final UUID clientId;
+	/**
+	 * The secret that lets a new connection resume the session
+	 */
+	final UUID token;
+	/**
+	 * {@code true} if an earlier session was resumed, the missed packets follow this one
+	 */
+	final boolean resumed;
+
+	@Override
+	protected void write(BitBuffer buffer) {
+		PacketSessionCodec.write(this, buffer);
+	}
+
+	@Override
+	public boolean isReplayable() {
+		return false;
+	}
+}
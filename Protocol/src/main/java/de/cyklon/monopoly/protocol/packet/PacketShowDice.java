@@ -0,0 +1,30 @@
+package de.cyklon.monopoly.protocol.packet;
+
+import de.cyklon.monopoly.processor.Codec;
+import de.cyklon.monopoly.processor.Ranged;
+import de.cyklon.monopoly.protocol.Packet;
+import de.cyklon.monopoly.protocol.io.BitBuffer;
+import lombok.RequiredArgsConstructor;
+
+import java.util.UUID;
+
+@Codec
+@RequiredArgsConstructor
+public class PacketShowDice extends Packet {
+
+	final UUID playerId;
+	@Ranged(min = 1, max = 6)
+	final int num1;
+	@Ranged(min = 1, max = 6)
+	final int num2;
+
+	@Override
+	protected void write(BitBuffer buffer) {
+		PacketShowDiceCodec.write(this, buffer);
+	}
+
+	@Override
+	public boolean isDroppable() {
+		return true;
+	}
+}
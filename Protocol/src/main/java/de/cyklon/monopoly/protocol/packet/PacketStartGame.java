@@ -0,0 +1,23 @@
+package de.cyklon.monopoly.protocol.packet;
+
+import de.cyklon.monopoly.processor.Codec;
+import de.cyklon.monopoly.protocol.GamePacket;
+import de.cyklon.monopoly.protocol.Packet;
+import de.cyklon.monopoly.protocol.io.BitBuffer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.UUID;
+
+@Codec
+@Getter
+@RequiredArgsConstructor
+public class PacketStartGame extends Packet implements GamePacket {
+
+	final UUID gameId;
+
+	@Override
+	protected void write(BitBuffer buffer) {
+		PacketStartGameCodec.write(this, buffer);
+	}
+}
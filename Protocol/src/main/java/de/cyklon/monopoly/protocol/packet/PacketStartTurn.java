@@ -0,0 +1,20 @@
+package de.cyklon.monopoly.protocol.packet;
+
+import de.cyklon.monopoly.processor.Codec;
+import de.cyklon.monopoly.protocol.Packet;
+import de.cyklon.monopoly.protocol.io.BitBuffer;
+import lombok.RequiredArgsConstructor;
+
+import java.util.UUID;
+
+@Codec
+@RequiredArgsConstructor
+public class PacketStartTurn extends Packet {
+
+	final UUID playerId;
+
+	@Override
+	protected void write(BitBuffer buffer) {
+		PacketStartTurnCodec.write(this, buffer);
+	}
+}
@@ -20,11 +20,8 @@ public class Action {
     private final String description;
     private final BiFunction<List<Player>, Player, Object[]> action;
 
-    private String displayDescription;
-
     private Action(String description, BiFunction<List<Player>, Player, Object[]> action) {
         this.description = description;
-        this.displayDescription = description;
         this.action = action;
     }
 
@@ -32,12 +29,12 @@ public class Action {
         return description;
     }
 
-    public String getDescription() {
-        return displayDescription;
-    }
-
-    public void run(List<Player> players, Player player) {
-        displayDescription = description.formatted(action.apply(players, player));
+    /**
+     * Runs the action, the actions are shared by all games
+     * @return the description of what happened
+     */
+    public String run(List<Player> players, Player player) {
+        return description.formatted(action.apply(players, player));
     }
 
     private static BiFunction<List<Player>, Player, Object[]> payAction(int... prices) {
@@ -2,7 +2,6 @@ package de.cyklon.monopoly;
 
 import de.cyklon.monopoly.server.GameListener;
 import de.cyklon.monopoly.server.GameServer;
-import de.cyklon.monopoly.server.Server;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -24,8 +23,8 @@ public class MonopolyInstance implements GameListener {
     private boolean running = false;
     private UUID currentPlayer;
 
-    public MonopolyInstance(Server server) {
-        this.server = server.getServer(UUID.randomUUID());
+    public MonopolyInstance(GameServer server) {
+        this.server = server;
     }
 
     private void reset() {
@@ -51,10 +50,10 @@ public class MonopolyInstance implements GameListener {
     }
 
     @Override
-    public boolean onJoin(String name) {
+    public boolean onJoin(UUID id, String name) {
         if (checkName(name)) return false;
 
-        players.add(new Player(UUID.randomUUID(), name, running, 0));
+        players.add(new Player(id, name, running, 0));
 
         return true;
     }
@@ -68,7 +67,7 @@ public class MonopolyInstance implements GameListener {
 
     @Override
     public void onRoll(UUID id) {
-        if (id != currentPlayer) return;
+        if (!id.equals(currentPlayer)) return;
 
         int num1 = random.nextInt(6)+1;
         int num2 = random.nextInt(6)+1;
@@ -81,8 +80,8 @@ public class MonopolyInstance implements GameListener {
         Field field = fields.get(player.getCurrentField());
         if (field.getType().getGroup().equals(Field.Type.Group.ACTION)) {
             Action action = Action.ACTIONS.get(random.nextInt(Action.ACTIONS.size()));
-            action.run(players, player);
-            server.sendDescription(player.getId(), player.getCurrentField(), action.getDescription());
+            String description = action.run(players, player);
+            server.sendDescription(player.getId(), player.getCurrentField(), description);
         } else {
             Player owner = field.getOwner();
             if (!player.equals(owner)) {
@@ -109,7 +108,7 @@ public class MonopolyInstance implements GameListener {
 
     @Override
     public void onEndTurn(UUID id) {
-        if (id != currentPlayer) return;
+        if (!id.equals(currentPlayer)) return;
         currentPlayer = players.get(nextPlayer(id)).getId();
         server.startTurn(currentPlayer);
     }
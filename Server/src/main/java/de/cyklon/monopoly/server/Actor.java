@@ -0,0 +1,87 @@
+package de.cyklon.monopoly.server;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the messages of its mailbox one after another on a shared executor.
+ *
+ * <p> At most one thread processes the mailbox at a time, and everything a message does
+ * is visible to the following messages, so state only touched by messages needs no locks.
+ * After a few messages the actor gives its thread back, so busy actors can't starve others. </p>
+ *
+ * <p> A message can move the actor to another executor, the following messages run there. </p>
+ */
+@Slf4j
+final class Actor implements Runnable {
+
+	private static final int MAX_MESSAGES = 64;
+
+	private final String name;
+	private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private volatile Executor executor;
+	/**
+	 * The amount of processed messages, only written by the thread running the actor
+	 */
+	private volatile long processed;
+
+	Actor(String name, Executor executor) {
+		this.name = name;
+		this.executor = executor;
+	}
+
+	/**
+	 * Adds a message to the mailbox, can be called from any thread
+	 * @param message the message to run
+	 */
+	void tell(Runnable message) {
+		mailbox.add(message);
+		schedule();
+	}
+
+	Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Runs the following messages on another executor, must be called by a message
+	 * @param executor the new executor
+	 */
+	void moveTo(Executor executor) {
+		this.executor = executor;
+	}
+
+	long getProcessed() {
+		return processed;
+	}
+
+	private void schedule() {
+		if (scheduled.compareAndSet(false, true)) executor.execute(this);
+	}
+
+	@Override
+	public void run() {
+		int i = 0;
+		try {
+			for (; i < MAX_MESSAGES; i++) {
+				Runnable message = mailbox.poll();
+				if (message == null) break;
+				try {
+					message.run();
+				} catch (Throwable e) {
+					//errors of the game logic, like a StackOverflowError, must not stop the mailbox
+					log.error("[%s] Exception while processing message".formatted(name), e);
+				}
+			}
+		} finally {
+			processed += i;
+			scheduled.set(false);
+			if (!mailbox.isEmpty()) schedule();
+		}
+	}
+}
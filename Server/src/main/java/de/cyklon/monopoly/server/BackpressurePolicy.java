@@ -0,0 +1,23 @@
+package de.cyklon.monopoly.server;
+
+import de.cyklon.monopoly.protocol.Packet;
+
+/**
+ * What happens to a packet sent to a client whose outbound queue is full.
+ */
+public enum BackpressurePolicy {
+
+	/**
+	 * {@link Packet#isDroppable() Droppable} packets are dropped, others disconnect the client
+	 */
+	DROP,
+	/**
+	 * Packets replace the queued packet with the same {@link Packet#getCoalesceKey() key},
+	 * if there is none they are handled like {@link #DROP}
+	 */
+	COALESCE,
+	/**
+	 * The client is disconnected
+	 */
+	DISCONNECT
+}
@@ -1,89 +1,437 @@
 package de.cyklon.monopoly.server;
 
+import de.cyklon.monopoly.protocol.Packet;
+import de.cyklon.monopoly.protocol.PacketHeader;
+import de.cyklon.monopoly.protocol.PacketRegistry;
+import de.cyklon.monopoly.protocol.io.BitBuffer;
+import de.cyklon.monopoly.protocol.packet.PacketPing;
+import de.cyklon.monopoly.protocol.packet.PacketResume;
+import de.cyklon.monopoly.protocol.packet.PacketSession;
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.Closeable;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * A client of the server and its session.
+ *
+ * <p> When the connection of a client in a game is lost, the client is detached instead of disconnected.
+ * Packets sent to it stay queued for the configured resume grace. A new connection presenting the
+ * token of the session with {@link PacketResume} takes over the client, the packets the old connection
+ * didn't deliver are replayed from the {@link OutboundQueue}. </p>
+ */
 @Slf4j
-public class ClientHandler implements Closeable, Runnable {
+public class ClientHandler implements Closeable {
+
+	private static final int RESUME_ID = PacketRegistry.getDefault().getId(PacketResume.class);
 
 	private final Server server;
-	private final Socket socket;
-	private final DataInputStream in;
-	private final DataOutputStream out;
+	private volatile Connection connection;
 	@Getter
 	private final UUID id;
+	/**
+	 * The secret a new connection needs to resume this session
+	 */
+	@Getter(AccessLevel.PACKAGE)
+	private final UUID token = UUID.randomUUID();
+	/**
+	 * The frames waiting to be written to this client
+	 */
+	@Getter
+	private final OutboundQueue outbound;
 
+	/**
+	 * The game this client is in, maintained by the {@link ClientRegistry}
+	 */
 	@Getter
-	private boolean connected;
+	@Setter(AccessLevel.PACKAGE)
+	private volatile UUID gameId;
 
+	@Getter
+	private volatile boolean connected;
+	private final AtomicInteger corks = new AtomicInteger();
+	/**
+	 * When the last frame was received, in {@link System#nanoTime()}
+	 */
+	private volatile long lastRead = System.nanoTime();
+	private volatile HashedWheelTimer.Timeout heartbeat;
+	/**
+	 * {@code null} if rate limiting is disabled
+	 */
+	private final RateLimiter limiter;
+	/**
+	 * Frames received while the connection is paused by the rate limit, guarded by the {@link #sessionLock}
+	 */
+	private Queue<byte[]> delayed;
+	/**
+	 * Guards the connection and its delayed frames against concurrent losses, resumes and closes
+	 */
+	private final ReentrantLock sessionLock = new ReentrantLock();
+	/**
+	 * The connection was lost, the client waits for a new one
+	 */
+	private volatile boolean detached;
+	private HashedWheelTimer.Timeout grace;
 
-	public ClientHandler(Server server, Socket socket) throws IOException {
+	ClientHandler(Server server, Connection connection) {
 		this.id = UUID.randomUUID();
 		this.server = server;
-		this.socket = socket;
-		this.in = new DataInputStream(socket.getInputStream());
-		this.out = new DataOutputStream(socket.getOutputStream());
+		this.connection = connection;
+		ServerConfig config = server.getConfig();
+		this.outbound = new OutboundQueue(config.getMaxQueuedBytes(), config.getBackpressure(), config.getResumeGrace() == null ? 0 : config.getResumeBuffer());
+		this.outbound.attach(connection);
+		this.connected = true;
+		this.limiter = server.getRateLimits() == null ? null : new RateLimiter(server.getRateLimits());
+		if (config.getHeartbeatInterval() != null) heartbeat = server.getTimer().schedule(this::heartbeat, config.getHeartbeatInterval());
 	}
 
 	private String getPrefix() {
 		return "[Client %s]".formatted(id);
 	}
 
-	@Override
-	public void run() {
-		while (server.isRunning() && isConnected()) {
-			try {
-				log.debug("%s Waiting for data".formatted(getPrefix()));
-
-				int len = in.readInt();
-
-				//disconnected
-				if (len==-1) close();
-				if (len>0) {
-					byte[] data = new byte[len];
-					if (in.read(data, 0, len)==-1) {
+	/**
+	 * Called by the connection for every received frame, on its I/O thread
+	 * @param from the connection, frames of a connection that was replaced by a resumed one are ignored
+	 * @param frame the payload of the frame, only valid during the call
+	 */
+	void receive(Connection from, ByteBuffer frame) throws IOException {
+		if (!connected) return;
+		sessionLock.lock();
+		try {
+			if (from != connection) return;
+			lastRead = System.nanoTime();
+			if (delayed != null) {
+				//keep the order, the frame waits behind the delayed ones
+				delayed.add(copy(frame));
+				return;
+			}
+		} finally {
+			sessionLock.unlock();
+		}
+		process(from, frame);
+	}
+
+	/**
+	 * Checks the rate limit of the frame, only reading its header, and routes it
+	 */
+	private void process(Connection from, ByteBuffer frame) throws IOException {
+		BitBuffer header = BitBuffer.readOnlyView(frame);
+		int id = PacketHeader.getId(header);
+		if (limiter != null) {
+			long wait;
+			while ((wait = limiter.acquire(id)) > 0) {
+				server.rateLimited();
+				switch (limiter.getAction()) {
+					case DROP -> {
+						log.debug("%s Dropped packet %s over rate limit".formatted(getPrefix(), id));
+						return;
+					}
+					case DISCONNECT -> {
+						log.warn("%s Exceeded the rate limit with packet %s".formatted(getPrefix(), id));
 						close();
-						continue;
+						return;
+					}
+					case DELAY -> {
+						if (!from.pause(wait)) {
+							sessionLock.lock();
+							try {
+								if (from == connection) {
+									delayed = new ArrayDeque<>();
+									delayed.add(copy(frame));
+								}
+							} finally {
+								sessionLock.unlock();
+							}
+							return;
+						}
 					}
-					receive(data);
 				}
+			}
+		}
+		if (id == RESUME_ID) {
+			server.resume(this, (PacketResume) Packet.read(frame));
+			return;
+		}
+		server.getGames().route(this, frame, header, id);
+	}
+
+	private static byte[] copy(ByteBuffer frame) {
+		byte[] copy = new byte[frame.remaining()];
+		frame.get(frame.position(), copy);
+		return copy;
+	}
 
-			} catch (IOException e) {
-				log.error("%s Exception while waiting for data".formatted(getPrefix()));
+	/**
+	 * Called by the connection on its I/O thread after it paused reading, handles the delayed frames
+	 * @param from the connection
+	 */
+	void resume(Connection from) {
+		Queue<byte[]> frames;
+		sessionLock.lock();
+		try {
+			if (from != connection) return;
+			frames = delayed;
+			delayed = null;
+		} finally {
+			sessionLock.unlock();
+		}
+		//dropped when the session moved to another connection
+		if (frames == null) return;
+		try {
+			while (connected && !frames.isEmpty()) {
+				process(from, ByteBuffer.wrap(frames.poll()));
+				sessionLock.lock();
+				try {
+					if (from != connection) return;
+					if (delayed != null) {
+						//paused again, the rest waits behind the frame that was delayed
+						delayed.addAll(frames);
+						return;
+					}
+				} finally {
+					sessionLock.unlock();
+				}
 			}
+		} catch (IOException e) {
+			log.warn("%s Rejected frame: %s".formatted(getPrefix(), e.getMessage()));
+			close();
+		}
+	}
+
+	/**
+	 * Drops the connection if it was idle for too long, pings the client otherwise. Runs on the timer thread
+	 */
+	private void heartbeat() {
+		if (!connected) return;
+		ServerConfig config = server.getConfig();
+		long idle = System.nanoTime() - lastRead;
+		if (!detached && config.getIdleTimeout() != null && idle > config.getIdleTimeout().toNanos()) {
+			log.info("%s Timed out after %d ms without data".formatted(getPrefix(), idle / 1_000_000));
+			connectionLost(connection);
+		} else if (!detached) {
+			send(new PacketPing(System.currentTimeMillis()));
 		}
+		heartbeat = server.getTimer().schedule(this::heartbeat, config.getHeartbeatInterval());
 	}
 
-	private void receive(byte[] data) {
+	/**
+	 * Called when the connection failed or was closed by the client. A client in a game is detached
+	 * and waits for a new connection within the resume grace, other clients are disconnected
+	 * @param lost the connection that was lost, ignored if it isn't the connection of the client anymore
+	 */
+	void connectionLost(Connection lost) {
+		Duration grace = server.getConfig().getResumeGrace();
+		boolean disconnect = false;
+		sessionLock.lock();
+		try {
+			if (!connected || lost != connection || detached) {
+				//the connection was already replaced
+			} else if (grace == null || gameId == null) {
+				disconnect = true;
+			} else {
+				detached = true;
+				outbound.attach(null);
+				this.grace = server.getTimer().schedule(this::expire, grace);
+				log.info("%s Connection lost, waiting %d s for the client to resume".formatted(getPrefix(), grace.toSeconds()));
+			}
+		} finally {
+			sessionLock.unlock();
+		}
+		if (disconnect) close();
+		else closeQuietly(lost);
+	}
 
+	/**
+	 * Disconnects the client if it didn't resume within the grace, runs on the timer thread
+	 */
+	private void expire() {
+		sessionLock.lock();
+		try {
+			//resumed while the timer fired
+			if (!detached) return;
+			log.info("%s Session expired".formatted(getPrefix()));
+			close();
+		} finally {
+			sessionLock.unlock();
+		}
 	}
 
-	public boolean send(byte[] data) {
+	/**
+	 * Moves the connection of another client to this session, if the token matches. Called on
+	 * the I/O thread of the new connection, after it received {@link PacketResume}
+	 * @param token the token of the session
+	 * @param received the amount of replayable packets the client received
+	 * @param fresh the client of the new connection, it is discarded without closing its connection
+	 * @return {@code false} if the session can't be resumed
+	 */
+	boolean resumeSession(UUID token, long received, ClientHandler fresh) {
+		Connection conn = fresh.connection;
+		Connection old;
+		int replayed;
+		sessionLock.lock();
 		try {
-			out.writeInt(data.length);
-			out.write(data);
-			out.flush();
-			return true;
+			if (!connected || !this.token.equals(token)) return false;
+			replayed = outbound.resume(received, conn, OutboundFrame.of(new PacketSession(id, token, true)));
+			if (replayed < 0) return false;
+			old = connection;
+			connection = conn;
+			//frames delayed by the rate limit belong to the old connection
+			delayed = null;
+			detached = false;
+			if (grace != null) grace.cancel();
+			lastRead = System.nanoTime();
+		} finally {
+			sessionLock.unlock();
+		}
+		conn.rebind(this);
+		fresh.handOver();
+		if (old != conn) closeQuietly(old);
+
+		GameSession game = gameId == null ? null : server.getGames().get(gameId);
+		if (game != null && game.getExecutor() instanceof EventLoop loop) conn.moveTo(loop);
+		conn.flush();
+		log.info("%s Resumed session from %s, replaying %d packets".formatted(getPrefix(), conn.getRemoteAddress(), replayed));
+		return true;
+	}
+
+	/**
+	 * Discards this client after its connection resumed another session, without closing the connection
+	 */
+	private void handOver() {
+		sessionLock.lock();
+		try {
+			if (!connected) return;
+			connected = false;
+		} finally {
+			sessionLock.unlock();
+		}
+		if (heartbeat != null) heartbeat.cancel();
+		leave();
+		outbound.close();
+	}
+
+	/**
+	 * Removes the client from the server and tells its game
+	 */
+	private void leave() {
+		UUID gameId = this.gameId;
+		server.getClients().remove(this);
+		if (gameId != null) {
+			GameSession game = server.getGames().get(gameId);
+			if (game != null) game.left(this);
+		}
+	}
+
+	private void closeQuietly(Connection connection) {
+		try {
+			connection.close();
 		} catch (IOException e) {
-			log.warn("Exception while sending to client %s".formatted(id), e);
+			log.warn("%s Exception while closing".formatted(getPrefix()), e);
+		}
+	}
+
+	/**
+	 * Queues the packet, it is written by the I/O thread of the connection.
+	 * If the client can't keep up, the packet is handled according to the {@link BackpressurePolicy}
+	 * @param packet the packet to send
+	 * @return {@code false} if the packet was dropped
+	 */
+	public boolean send(Packet packet) {
+		if (!connected) return false;
+		return send(OutboundFrame.of(packet));
+	}
+
+	public boolean send(byte[] data) {
+		if (!connected) return false;
+		return send(OutboundFrame.of(data));
+	}
+
+	/**
+	 * Sends the packet to all clients. The packet is encoded once,
+	 * all clients write the same immutable bytes
+	 * @param packet the packet to send
+	 * @param clients the clients to send to
+	 * @return the amount of clients the packet was queued for
+	 */
+	public static int broadcast(Packet packet, Iterable<ClientHandler> clients) {
+		OutboundFrame frame = null;
+		int sent = 0;
+		for (ClientHandler client : clients) {
+			if (!client.isConnected()) continue;
+			if (frame == null) frame = OutboundFrame.of(packet);
+			if (client.send(frame)) sent++;
+		}
+		return sent;
+	}
+
+	boolean send(OutboundFrame frame) {
+		switch (outbound.offer(frame)) {
+			case QUEUED, COALESCED -> {
+				if (corks.get() == 0) connection.flush();
+				return true;
+			}
+			case OVERFLOW -> {
+				log.warn("%s Outbound queue overflow, disconnecting (%s)".formatted(getPrefix(), outbound));
+				close();
+			}
 		}
 		return false;
 	}
 
+	/**
+	 * @return the event loop serving this client, or {@code null} if its transport has none
+	 */
+	EventLoop getEventLoop() {
+		return connection.getEventLoop();
+	}
+
+	/**
+	 * Moves the connection to the event loop of the game
+	 */
+	void moveTo(EventLoop loop) {
+		connection.moveTo(loop);
+	}
+
+	/**
+	 * Holds back the packets sent to this client until {@link #uncork()} is called,
+	 * so they are written together as one frame. Calls can be nested
+	 */
+	public void cork() {
+		corks.incrementAndGet();
+	}
+
+	/**
+	 * Writes the packets held back since {@link #cork()}, once every cork was removed
+	 */
+	public void uncork() {
+		if (corks.decrementAndGet() == 0 && outbound.getDepth() > 0) connection.flush();
+	}
+
 	@Override
-	public void close() throws IOException {
-		if (!connected) return;
-		connected = false;
-		in.close();
-		out.close();
-		socket.close();
+	public void close() {
+		sessionLock.lock();
+		try {
+			if (!connected) return;
+			connected = false;
+			detached = false;
+			if (grace != null) grace.cancel();
+		} finally {
+			sessionLock.unlock();
+		}
+		if (heartbeat != null) heartbeat.cancel();
+		leave();
+		outbound.close();
+		closeQuietly(connection);
 		log.info("Client %s disconnected".formatted(id));
 	}
 }
@@ -0,0 +1,92 @@
+package de.cyklon.monopoly.server;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The connected clients of a {@link Server}, indexed by their id and by the game they are in.
+ *
+ * <p> Lookups and iteration don't lock, adding and removing only contends with
+ * changes to the same hash bin. Iteration is weakly consistent, it doesn't fail
+ * if clients connect or disconnect concurrently. </p>
+ */
+public class ClientRegistry {
+
+	private final Map<UUID, ClientHandler> clients = new ConcurrentHashMap<>();
+	private final Map<UUID, Set<ClientHandler>> games = new ConcurrentHashMap<>();
+
+	void add(ClientHandler client) {
+		clients.put(client.getId(), client);
+	}
+
+	/**
+	 * Removes the client and takes it out of its game
+	 */
+	void remove(ClientHandler client) {
+		clients.remove(client.getId(), client);
+		leave(client);
+	}
+
+	/**
+	 * Puts the client into a game, it leaves its previous game
+	 * @param client the client
+	 * @param gameId the id of the game
+	 */
+	public void join(ClientHandler client, UUID gameId) {
+		leave(client);
+		client.setGameId(gameId);
+		games.compute(gameId, (id, set) -> {
+			if (set == null) set = ConcurrentHashMap.newKeySet();
+			set.add(client);
+			return set;
+		});
+		//the client disconnected concurrently, it must not stay in the index
+		if (!client.isConnected()) leave(client);
+	}
+
+	/**
+	 * Takes the client out of its game
+	 * @param client the client
+	 */
+	public void leave(ClientHandler client) {
+		UUID gameId = client.getGameId();
+		if (gameId == null) return;
+		client.setGameId(null);
+		games.computeIfPresent(gameId, (id, set) -> {
+			set.remove(client);
+			return set.isEmpty() ? null : set;
+		});
+	}
+
+	/**
+	 * @param id the id of the client
+	 * @return the client, or {@code null} if no client with that id is connected
+	 */
+	public ClientHandler get(UUID id) {
+		return clients.get(id);
+	}
+
+	/**
+	 * @param gameId the id of the game
+	 * @return the clients in the game, weakly consistent
+	 */
+	public Collection<ClientHandler> inGame(UUID gameId) {
+		Set<ClientHandler> set = games.get(gameId);
+		return set == null ? Collections.emptySet() : Collections.unmodifiableSet(set);
+	}
+
+	/**
+	 * @return a live view of all clients
+	 */
+	public Collection<ClientHandler> all() {
+		return Collections.unmodifiableCollection(clients.values());
+	}
+
+	public int size() {
+		return clients.size();
+	}
+}
@@ -0,0 +1,65 @@
+package de.cyklon.monopoly.server;
+
+import java.io.Closeable;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * The byte stream of a {@link ClientHandler}, provided by a {@link Transport}.
+ *
+ * <p> A connection decodes the received bytes into frames and passes them to
+ * {@link ClientHandler#receive(Connection, ByteBuffer)} on its I/O thread. Frames sent to the client
+ * are taken from its {@link OutboundQueue} and written on the I/O thread as well, so
+ * senders never wait for the socket. A connection that is lost reports it with
+ * {@link ClientHandler#connectionLost(Connection)}, the client decides whether to wait for a new connection. </p>
+ */
+interface Connection extends Closeable {
+
+	/**
+	 * Starts reading and writing, frames are passed to the given client
+	 * and taken from its outbound queue from now on
+	 * @param client the client of this connection
+	 */
+	void start(ClientHandler client);
+
+	/**
+	 * Passes the frames to another client from now on and takes the frames from its outbound queue,
+	 * called on the I/O thread when the connection resumes the session of that client
+	 * @param client the client of the resumed session
+	 */
+	void rebind(ClientHandler client);
+
+	/**
+	 * Called after frames were added to the outbound queue of the client.
+	 * The connection writes everything queued at that time as one frame, after the configured flush delay
+	 */
+	void flush();
+
+	/**
+	 * Stops reading from the client for a while, called on the I/O thread when
+	 * the client exceeded its {@link RateLimit} with {@link RateLimitAction#DELAY}.
+	 * Blocking connections wait right away. Non blocking connections stop reading and
+	 * call {@link ClientHandler#resume(Connection)} on their I/O thread once the time passed
+	 * @param nanos how long to stop reading
+	 * @return {@code true} if the connection waited, {@code false} if it will call {@link ClientHandler#resume(Connection)}
+	 */
+	boolean pause(long nanos);
+
+	/**
+	 * @return the event loop serving this connection, or {@code null} if it has none
+	 */
+	default EventLoop getEventLoop() {
+		return null;
+	}
+
+	/**
+	 * Moves the connection to another event loop, so it is served by the same thread
+	 * as its game. Connections without an event loop ignore this
+	 * @param loop the new loop
+	 */
+	default void moveTo(EventLoop loop) {}
+
+	SocketAddress getRemoteAddress();
+
+	boolean isOpen();
+}
@@ -0,0 +1,199 @@
+package de.cyklon.monopoly.server;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A thread that waits for the readiness of many channels with one {@link Selector}.
+ *
+ * <p> Everything registered with a loop is only touched by its thread. Other threads hand
+ * work to the loop with {@link #execute(Runnable)}, which wakes up the selector if needed. </p>
+ */
+@Slf4j
+final class EventLoop implements Executor, Closeable {
+
+	private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Attachment of the registered keys
+	 */
+	interface Selectable {
+
+		/**
+		 * Called on the loop thread if the channel is ready for one of its interest ops
+		 * @param key the key of the channel
+		 */
+		void ready(SelectionKey key);
+
+		/**
+		 * Called on the loop thread when the loop shuts down
+		 */
+		void close() throws IOException;
+	}
+
+	private final Selector selector;
+	private final Thread thread;
+	private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+	private final Queue<Scheduled> scheduled = new PriorityQueue<>(Comparator.comparingLong(Scheduled::deadline));
+	private final AtomicBoolean wakeup = new AtomicBoolean();
+	private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+	private volatile boolean running = true;
+	/**
+	 * Time spent handling keys and tasks instead of waiting, only written by the loop thread
+	 */
+	private volatile long busyNanos;
+
+	private record Scheduled(long deadline, Runnable task) {}
+
+	EventLoop(String name) throws IOException {
+		this.selector = Selector.open();
+		this.thread = new Thread(this::run, name);
+	}
+
+	void start() {
+		thread.start();
+	}
+
+	boolean inEventLoop() {
+		return Thread.currentThread() == thread;
+	}
+
+	/**
+	 * @return the buffer channels of this loop read into, only valid on the loop thread
+	 */
+	ByteBuffer readBuffer() {
+		return readBuffer;
+	}
+
+	String getName() {
+		return thread.getName();
+	}
+
+	/**
+	 * @return the total time this loop was busy, in nanoseconds. The difference
+	 * of two calls divided by the time between them is the load of the loop
+	 */
+	long getBusyNanos() {
+		return busyNanos;
+	}
+
+	/**
+	 * Registers a channel with the selector, must be called on the loop thread
+	 * @throws CancelledKeyException if the channel was registered before and the
+	 * selector didn't release the cancelled key yet, which it does on its next select
+	 */
+	SelectionKey register(SelectableChannel channel, int ops, Selectable selectable) throws ClosedChannelException {
+		return channel.register(selector, ops, selectable);
+	}
+
+	/**
+	 * Runs the task on the loop thread, after the current iteration of the loop
+	 */
+	@Override
+	public void execute(Runnable task) {
+		tasks.add(task);
+		if (!inEventLoop() && wakeup.compareAndSet(false, true)) selector.wakeup();
+	}
+
+	/**
+	 * Runs the task on the loop thread after the delay
+	 */
+	void schedule(Runnable task, long delay, TimeUnit unit) {
+		long deadline = System.nanoTime() + unit.toNanos(delay);
+		execute(() -> scheduled.add(new Scheduled(deadline, task)));
+	}
+
+	private void run() {
+		while (running) {
+			try {
+				Scheduled next = scheduled.peek();
+				if (!tasks.isEmpty()) selector.selectNow();
+				else if (next == null) selector.select();
+				else selector.select(Math.max(TimeUnit.NANOSECONDS.toMillis(next.deadline() - System.nanoTime()), 1));
+				wakeup.set(false);
+				long start = System.nanoTime();
+
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					try {
+						((Selectable) key.attachment()).ready(key);
+					} catch (CancelledKeyException ignored) {
+					}
+				}
+				runScheduled();
+				runTasks();
+				busyNanos += System.nanoTime() - start;
+			} catch (IOException e) {
+				log.error("[%s] Exception while selecting".formatted(thread.getName()), e);
+			} catch (RuntimeException e) {
+				log.error("[%s] Unhandled exception".formatted(thread.getName()), e);
+			}
+		}
+		shutdown();
+	}
+
+	private void runScheduled() {
+		long now = System.nanoTime();
+		Scheduled next;
+		while ((next = scheduled.peek()) != null && next.deadline() - now <= 0) {
+			scheduled.poll();
+			tasks.add(next.task());
+		}
+	}
+
+	/**
+	 * Runs the tasks queued before the pass started. Tasks they queue, like an actor
+	 * scheduling itself again, wait for the next iteration, so the keys are selected in between
+	 */
+	private void runTasks() {
+		Runnable task;
+		for (int n = tasks.size(); n > 0 && (task = tasks.poll()) != null; n--) {
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				log.error("[%s] Exception in task".formatted(thread.getName()), e);
+			}
+		}
+	}
+
+	private void shutdown() {
+		runTasks();
+		for (SelectionKey key : selector.keys()) {
+			try {
+				((Selectable) key.attachment()).close();
+			} catch (IOException e) {
+				log.warn("[%s] Exception while closing channel".formatted(thread.getName()), e);
+			}
+		}
+		try {
+			selector.close();
+		} catch (IOException e) {
+			log.warn("[%s] Exception while closing selector".formatted(thread.getName()), e);
+		}
+	}
+
+	@Override
+	public void close() {
+		running = false;
+		selector.wakeup();
+	}
+}
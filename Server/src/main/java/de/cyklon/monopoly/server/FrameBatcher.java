@@ -0,0 +1,53 @@
+package de.cyklon.monopoly.server;
+
+import de.cyklon.monopoly.protocol.Batch;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Turns the frames of an {@link OutboundQueue} into as few frames as possible.
+ *
+ * <p> Everything that is queued when the connection writes is packed into one
+ * {@link Batch batch} frame, as long as it doesn't exceed the maximum frame size.
+ * A single queued frame is written as it is. Used by one I/O thread only. </p>
+ */
+final class FrameBatcher {
+
+	private static final int MAX_BATCH = 256;
+
+	private final OutboundFrame[] frames = new OutboundFrame[MAX_BATCH];
+	private final int maxFrameSize;
+
+	FrameBatcher(int maxFrameSize) {
+		this.maxFrameSize = maxFrameSize;
+	}
+
+	/**
+	 * Takes the next frames from the queue
+	 * @param owner the connection writing the frames
+	 * @return the length prefix and payload of the next frame to write,
+	 * or {@code null} if the queue is empty or not owned by the connection
+	 */
+	ByteBuffer next(OutboundQueue queue, Object owner) {
+		//the entry length takes less bytes than the length prefix of the frame, so the batch stays below maxFrameSize
+		int n = queue.drainTo(frames, maxFrameSize - 1, owner);
+		if (n == 0) return null;
+		if (n == 1) {
+			ByteBuffer data = frames[0].toByteBuffer();
+			frames[0] = null;
+			return data;
+		}
+
+		int size = 1;
+		for (int i = 0; i < n; i++) size += Batch.entrySize(frames[i].length() - Integer.BYTES);
+		ByteBuffer data = ByteBuffer.allocate(Integer.BYTES + size);
+		data.putInt(size);
+		Batch.putHeader(data);
+		for (int i = 0; i < n; i++) {
+			OutboundFrame frame = frames[i];
+			Batch.putEntry(data, frame.data(), Integer.BYTES, frame.length() - Integer.BYTES);
+			frames[i] = null;
+		}
+		return data.flip();
+	}
+}
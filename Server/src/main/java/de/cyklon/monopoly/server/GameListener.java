@@ -4,7 +4,7 @@ import java.util.UUID;
 
 public interface GameListener {
 
-	boolean onJoin(String name);
+	boolean onJoin(UUID id, String name);
 
 	void onRoll(UUID id);
 
@@ -0,0 +1,180 @@
+package de.cyklon.monopoly.server;
+
+import de.cyklon.monopoly.protocol.Packet;
+import de.cyklon.monopoly.protocol.PacketHeader;
+import de.cyklon.monopoly.protocol.PacketRegistry;
+import de.cyklon.monopoly.protocol.io.BitBuffer;
+import de.cyklon.monopoly.protocol.packet.PacketCreateGame;
+import de.cyklon.monopoly.protocol.packet.PacketJoinGame;
+import de.cyklon.monopoly.protocol.packet.PacketJoinResult;
+import de.cyklon.monopoly.protocol.packet.PacketPing;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * The games of a {@link Server}, indexed by their id.
+ *
+ * <p> The games are spread over a fixed amount of shards, each a concurrent map,
+ * so creating and removing games on different shards never contends.
+ * All games run on one shared worker pool, see {@link GameSession}, or with
+ * {@link GameScheduling#EVENT_LOOP} on the event loops of the transport. </p>
+ */
+@Slf4j
+public class GameRegistry implements Closeable {
+
+	private static final int SHARDS = 16;
+	private static final int JOIN_ID = PacketRegistry.getDefault().getId(PacketJoinGame.class);
+
+	private final Map<UUID, GameSession>[] shards;
+	private final ClientRegistry clients;
+	private final ServerConfig config;
+	private final HashedWheelTimer timer;
+	private final ForkJoinPool workers;
+	private final Function<GameServer, GameListener> factory;
+	/**
+	 * Balances the games over the event loops, {@code null} if games run on the worker pool
+	 */
+	private final LoopBalancer balancer;
+
+	/**
+	 * @param clients the clients of the server
+	 * @param config the configuration of the server
+	 * @param timer runs the turn deadlines
+	 * @param loops the event loops of the transport, may be empty
+	 * @param factory creates the game logic of new games
+	 */
+	@SuppressWarnings("unchecked")
+	GameRegistry(ClientRegistry clients, ServerConfig config, HashedWheelTimer timer, List<EventLoop> loops, Function<GameServer, GameListener> factory) {
+		this.shards = new Map[SHARDS];
+		for (int i = 0; i < SHARDS; i++) shards[i] = new ConcurrentHashMap<>();
+		this.clients = clients;
+		this.config = config;
+		this.timer = timer;
+		this.workers = new ForkJoinPool(config.getGameThreads(), ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+		this.factory = factory;
+		if (config.getGameScheduling() == GameScheduling.EVENT_LOOP && !loops.isEmpty()) {
+			this.balancer = new LoopBalancer(this, loops, config.getRebalanceInterval().toNanos());
+			balancer.start();
+		} else this.balancer = null;
+	}
+
+	private Map<UUID, GameSession> shard(UUID id) {
+		int h = id.hashCode();
+		return shards[(h ^ (h >>> 16)) & (SHARDS - 1)];
+	}
+
+	/**
+	 * Creates a new game
+	 * @param maxPlayers the maximum amount of players
+	 * @param privateGame whether the game can only be joined by its id
+	 * @return the new game
+	 */
+	public GameSession create(int maxPlayers, boolean privateGame) {
+		return create(balancer == null ? workers : balancer.getIdlest(), maxPlayers, privateGame);
+	}
+
+	/**
+	 * Creates a new game on the event loop of the client, so it doesn't have to move when it joins
+	 */
+	private GameSession create(ClientHandler client, int maxPlayers, boolean privateGame) {
+		EventLoop loop = client.getEventLoop();
+		if (balancer == null || loop == null) return create(maxPlayers, privateGame);
+		return create(loop, maxPlayers, privateGame);
+	}
+
+	private GameSession create(Executor executor, int maxPlayers, boolean privateGame) {
+		UUID id = UUID.randomUUID();
+		GameSession game = new GameSession(id, maxPlayers, privateGame, this, clients, executor, timer, config.getTurnTimeout(), factory);
+		shard(id).put(id, game);
+		log.debug("[Server] Created game %s".formatted(id));
+		return game;
+	}
+
+	/**
+	 * @param id the id of the game
+	 * @return the game, or {@code null} if there is no game with that id
+	 */
+	public GameSession get(UUID id) {
+		return shard(id).get(id);
+	}
+
+	void remove(GameSession game) {
+		if (shard(game.getId()).remove(game.getId(), game)) log.debug("[Server] Removed game %s".formatted(game.getId()));
+	}
+
+	/**
+	 * @return a snapshot of all games
+	 */
+	public List<GameSession> all() {
+		List<GameSession> all = new ArrayList<>();
+		for (Map<UUID, GameSession> shard : shards) all.addAll(shard.values());
+		return all;
+	}
+
+	public int size() {
+		int size = 0;
+		for (Map<UUID, GameSession> shard : shards) size += shard.size();
+		return size;
+	}
+
+	/**
+	 * Passes a received frame to the mailbox of its game.
+	 *
+	 * <p> Only the header of {@link PacketRegistry#isRouted(int) routed} packets is read here,
+	 * the game decodes them on its own thread. Packets for games that don't exist or that
+	 * the client isn't part of are dropped without being decoded. Other packets are decoded
+	 * right away. </p>
+	 *
+	 * @param client the sender
+	 * @param frame the payload of the frame, only valid during the call
+	 * @param header a view of the frame
+	 * @param id the packet id, read from the header
+	 * @throws IOException if the frame is malformed
+	 */
+	void route(ClientHandler client, ByteBuffer frame, BitBuffer header, int id) throws IOException {
+		if (!PacketRegistry.getDefault().isRouted(id)) {
+			route(client, Packet.read(frame));
+			return;
+		}
+
+		UUID gameId = PacketHeader.getGameId(header);
+		GameSession game = get(gameId);
+		if (id == JOIN_ID) {
+			if (game == null) client.send(new PacketJoinResult(gameId, client.getId(), false));
+		} else if (game == null || !gameId.equals(client.getGameId())) {
+			log.debug("[Client %s] Dropped packet %s for game %s".formatted(client.getId(), id, gameId));
+			return;
+		}
+		if (game == null) return;
+
+		byte[] packet = new byte[frame.remaining()];
+		frame.get(frame.position(), packet);
+		game.receive(client, packet);
+	}
+
+	private void route(ClientHandler client, Packet packet) {
+		log.debug("[Client %s] Received %s".formatted(client.getId(), packet.getClass().getSimpleName()));
+		switch (packet) {
+			case PacketCreateGame create -> create(client, create.getMaxPlayers(), create.isPrivateGame()).join(client, create.getPlayerName());
+			//answer to a heartbeat, receiving it already kept the client alive
+			case PacketPing ping -> {}
+			default -> log.debug("[Client %s] Unexpected %s".formatted(client.getId(), packet.getClass().getSimpleName()));
+		}
+	}
+
+	@Override
+	public void close() {
+		workers.shutdown();
+	}
+}
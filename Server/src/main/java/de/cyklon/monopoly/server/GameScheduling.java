@@ -0,0 +1,15 @@
+package de.cyklon.monopoly.server;
+
+public enum GameScheduling {
+
+	/**
+	 * Games run on a shared worker pool, packets hop from the I/O thread to a worker and back
+	 */
+	POOL,
+	/**
+	 * Every game runs on the event loop of its players, which are moved to that loop when they join.
+	 * Turns are handled on one thread without any handoff, busy loops give games to idle ones.
+	 * Only the {@link TransportType#NIO} transport has event loops, other transports use the pool
+	 */
+	EVENT_LOOP
+}
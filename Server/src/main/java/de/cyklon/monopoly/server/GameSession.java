@@ -0,0 +1,233 @@
+package de.cyklon.monopoly.server;
+
+import de.cyklon.monopoly.protocol.GamePacket;
+import de.cyklon.monopoly.protocol.Packet;
+import de.cyklon.monopoly.protocol.packet.*;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.InvalidClassException;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * One game on the server and the {@link GameServer} it sends its events through.
+ *
+ * <p> The game runs as {@link Actor}: everything that reaches the game, packets as well as
+ * joins and leaves, is a message of its mailbox, and the messages are processed one after
+ * another on the worker pool of the {@link GameRegistry}. The {@link GameListener} and the
+ * {@link GameServer} methods are only called from there, so the game logic needs no locks. </p>
+ *
+ * <p> With {@link GameScheduling#EVENT_LOOP} the actor runs on an event loop instead,
+ * and the connections of the players are moved to that loop when they join. </p>
+ *
+ * <p> A turn that isn't ended within the configured turn timeout is ended by the game itself. </p>
+ *
+ * <p> Players are identified by the id of their client, the clients of the game
+ * are kept in the {@link ClientRegistry} of the server. </p>
+ */
+@Slf4j
+public class GameSession implements GameServer {
+
+	@Getter
+	private final UUID id;
+	@Getter
+	private final int maxPlayers;
+	@Getter
+	private final boolean privateGame;
+	private final GameRegistry games;
+	private final ClientRegistry clients;
+	private final Actor actor;
+	private final GameListener listener;
+	private final HashedWheelTimer timer;
+	private final Duration turnTimeout;
+
+	//only used by the actor
+	private HashedWheelTimer.Timeout turnDeadline;
+	private int turn;
+
+	GameSession(UUID id, int maxPlayers, boolean privateGame, GameRegistry games, ClientRegistry clients,
+				Executor executor, HashedWheelTimer timer, Duration turnTimeout, Function<GameServer, GameListener> factory) {
+		this.id = id;
+		this.maxPlayers = maxPlayers;
+		this.privateGame = privateGame;
+		this.games = games;
+		this.clients = clients;
+		this.actor = new Actor("Game " + id, executor);
+		this.timer = timer;
+		this.turnTimeout = turnTimeout;
+		this.listener = factory.apply(this);
+	}
+
+	/**
+	 * Lets the client join the game as player, the client is told whether it was accepted
+	 * @param client the client
+	 * @param name the name of the player
+	 */
+	void join(ClientHandler client, String name) {
+		actor.tell(() -> accept(client, name));
+	}
+
+	private void accept(ClientHandler client, String name) {
+		boolean accepted = client.isConnected()
+				&& clients.inGame(id).size() < maxPlayers
+				&& listener.onJoin(client.getId(), name);
+		if (accepted) {
+			clients.join(client, id);
+			if (actor.getExecutor() instanceof EventLoop loop) client.moveTo(loop);
+		}
+		client.send(new PacketJoinResult(id, client.getId(), accepted));
+	}
+
+	/**
+	 * Moves the game and the connections of its players to another event loop
+	 * @param loop the new loop
+	 */
+	void moveTo(EventLoop loop) {
+		actor.tell(() -> {
+			actor.moveTo(loop);
+			for (ClientHandler client : clients.inGame(id)) client.moveTo(loop);
+		});
+	}
+
+	/**
+	 * @return the executor the game currently runs on
+	 */
+	Executor getExecutor() {
+		return actor.getExecutor();
+	}
+
+	/**
+	 * @return the amount of messages the game processed, a measure of how busy it is
+	 */
+	long getProcessed() {
+		return actor.getProcessed();
+	}
+
+	/**
+	 * Called after a client of this game disconnected, the game is removed once it is empty
+	 * @param client the client
+	 */
+	void left(ClientHandler client) {
+		actor.tell(() -> {
+			if (!clients.inGame(id).isEmpty()) return;
+			games.remove(this);
+			if (turnDeadline != null) turnDeadline.cancel();
+		});
+	}
+
+	/**
+	 * Passes an encoded packet to the game, it is decoded on the thread of the game.
+	 * Clients sending malformed packets are disconnected, packets of clients
+	 * that aren't in the game are ignored
+	 * @param client the sender
+	 * @param data the encoded {@link GamePacket} for this game
+	 */
+	void receive(ClientHandler client, byte[] data) {
+		actor.tell(() -> {
+			Packet packet;
+			try {
+				packet = Packet.read(data);
+			} catch (InvalidClassException | RuntimeException e) {
+				log.warn("[Client %s] Rejected packet: %s".formatted(client.getId(), e));
+				client.close();
+				return;
+			}
+			log.debug("[Game %s] Received %s from %s".formatted(id, packet.getClass().getSimpleName(), client.getId()));
+			if (packet instanceof PacketJoinGame join) accept(client, join.getPlayerName());
+			else handle(client, (GamePacket) packet);
+		});
+	}
+
+	private void handle(ClientHandler client, GamePacket packet) {
+		if (!id.equals(client.getGameId())) return;
+		UUID player = client.getId();
+		step(() -> {
+			switch (packet) {
+				case PacketStartGame start -> listener.onStart(player);
+				case PacketRoll roll -> listener.onRoll(player);
+				case PacketEndTurn end -> listener.onEndTurn(player);
+				case PacketBuy buy -> listener.onBuy(player, buy.getField());
+				default -> log.debug("[Game %s] Unexpected %s from %s".formatted(id, packet.getClass().getSimpleName(), player));
+			}
+		});
+	}
+
+	/**
+	 * Runs one step of the game, like handling a roll. All packets the step sends
+	 * to a client are written together as one frame
+	 * @param step the step to run
+	 */
+	public void step(Runnable step) {
+		List<ClientHandler> corked = List.copyOf(clients.inGame(id));
+		for (ClientHandler client : corked) client.cork();
+		try {
+			step.run();
+		} finally {
+			for (ClientHandler client : corked) client.uncork();
+		}
+	}
+
+	/**
+	 * Sends the packet to every player and spectator of the game, the packet is only encoded once
+	 * @param packet the packet to send
+	 */
+	public void broadcast(Packet packet) {
+		ClientHandler.broadcast(packet, clients.inGame(id));
+	}
+
+	private void send(UUID id, Packet packet) {
+		ClientHandler client = clients.get(id);
+		if (client == null || !this.id.equals(client.getGameId())) log.debug("[Game %s] Player %s is not connected".formatted(this.id, id));
+		else client.send(packet);
+	}
+
+	@Override
+	public void showDice(UUID id, int num1, int num2) {
+		broadcast(new PacketShowDice(id, num1, num2));
+	}
+
+	@Override
+	public void move(UUID id, int field) {
+		broadcast(new PacketMove(id, field));
+	}
+
+	@Override
+	public void startTurn(UUID id) {
+		broadcast(new PacketStartTurn(id));
+		scheduleTurnDeadline(id);
+	}
+
+	/**
+	 * Ends the turn of the player after the turn timeout, unless another turn starts before
+	 */
+	private void scheduleTurnDeadline(UUID player) {
+		if (turnDeadline != null) turnDeadline.cancel();
+		if (turnTimeout == null) return;
+		int turn = ++this.turn;
+		turnDeadline = timer.schedule(() -> actor.tell(() -> {
+			//the deadline may have fired while the next turn started
+			if (this.turn != turn) return;
+			log.debug("[Game %s] Turn of %s timed out".formatted(this.id, player));
+			step(() -> listener.onEndTurn(player));
+		}), turnTimeout);
+	}
+
+	@Override
+	public void showEndTurnBtn(UUID id) {
+		send(id, new PacketShowEndTurn(id));
+	}
+
+	@Override
+	public void buyDialog(UUID id, int field) {
+		send(id, new PacketBuyDialog(id, field));
+	}
+
+	@Override
+	public void sendDescription(UUID id, int field, String description) {
+		broadcast(new PacketDescription(id, field, description));
+	}
+}
@@ -0,0 +1,210 @@
+package de.cyklon.monopoly.server;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs tasks after a delay, with a precision of one tick.
+ *
+ * <p> The timeouts hang in a ring of buckets, one per tick. A timeout further away than one turn of
+ * the wheel waits in its bucket for the remaining turns. Scheduling and cancelling only add to a
+ * queue and are O(1) from any thread, one timer thread moves the timeouts into their buckets and
+ * expires one bucket per tick. Millions of timeouts cost one thread and a few objects each. </p>
+ *
+ * <p> Tasks run on the timer thread, they have to be short and hand real work to another thread,
+ * like the {@link Actor} of a game. </p>
+ */
+@Slf4j
+final class HashedWheelTimer implements Closeable {
+
+	private static final int MAX_TRANSFERS = 100_000;
+
+	private final long tick;
+	private final Bucket[] wheel;
+	private final int mask;
+	private final long startTime = System.nanoTime();
+	private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+	private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+	private final Thread thread;
+	private volatile boolean running = true;
+	/**
+	 * The ticks since the start, only used by the timer thread
+	 */
+	private long ticks;
+
+	/**
+	 * @param tick the duration of one tick
+	 * @param wheelSize the amount of buckets, rounded up to a power of two
+	 */
+	HashedWheelTimer(Duration tick, int wheelSize) {
+		if (tick.isNegative() || tick.isZero()) throw new IllegalArgumentException("tick must be positive: " + tick);
+		if (wheelSize <= 0) throw new IllegalArgumentException("wheelSize must be positive: " + wheelSize);
+		this.tick = tick.toNanos();
+		int size = 1;
+		while (size < wheelSize) size <<= 1;
+		this.wheel = new Bucket[size];
+		for (int i = 0; i < wheel.length; i++) wheel[i] = new Bucket();
+		this.mask = wheel.length - 1;
+		this.thread = new Thread(this::run, "Server Timer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Runs the task on the timer thread after the delay, can be called from any thread
+	 * @param task the task
+	 * @param delay the delay
+	 * @return the timeout, to cancel it
+	 */
+	Timeout schedule(Runnable task, Duration delay) {
+		Timeout timeout = new Timeout(this, task, System.nanoTime() - startTime + Math.max(delay.toNanos(), 0));
+		pending.add(timeout);
+		return timeout;
+	}
+
+	private void run() {
+		while (running) {
+			long deadline = tick * (ticks + 1);
+			long sleep = deadline - (System.nanoTime() - startTime);
+			if (sleep > 0) {
+				LockSupport.parkNanos(this, sleep);
+				continue;
+			}
+			removeCancelled();
+			transferPending();
+			wheel[(int) (ticks & mask)].expire();
+			ticks++;
+		}
+	}
+
+	private void removeCancelled() {
+		Timeout timeout;
+		while ((timeout = cancelled.poll()) != null) {
+			if (timeout.bucket != null) timeout.bucket.remove(timeout);
+		}
+	}
+
+	private void transferPending() {
+		for (int i = 0; i < MAX_TRANSFERS; i++) {
+			Timeout timeout = pending.poll();
+			if (timeout == null) return;
+			if (timeout.state.get() != Timeout.WAITING) continue;
+			long tickOf = timeout.deadline / tick;
+			timeout.rounds = (tickOf - ticks) / wheel.length;
+			//already due timeouts expire with the current tick
+			wheel[(int) (Math.max(tickOf, ticks) & mask)].add(timeout);
+		}
+	}
+
+	@Override
+	public void close() {
+		running = false;
+		LockSupport.unpark(thread);
+	}
+
+	/**
+	 * A scheduled task
+	 */
+	static final class Timeout {
+
+		private static final int WAITING = 0, CANCELLED = 1, EXPIRED = 2;
+
+		private final HashedWheelTimer timer;
+		private final Runnable task;
+		/**
+		 * Nanoseconds since the start of the timer
+		 */
+		private final long deadline;
+		private final AtomicInteger state = new AtomicInteger(WAITING);
+
+		//only used by the timer thread
+		private long rounds;
+		private Bucket bucket;
+		private Timeout prev, next;
+
+		private Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+			this.timer = timer;
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * Cancels the timeout, can be called from any thread
+		 * @return {@code false} if the task already ran or was cancelled before
+		 */
+		boolean cancel() {
+			if (!state.compareAndSet(WAITING, CANCELLED)) return false;
+			timer.cancelled.add(this);
+			return true;
+		}
+
+		boolean isCancelled() {
+			return state.get() == CANCELLED;
+		}
+
+		boolean isExpired() {
+			return state.get() == EXPIRED;
+		}
+
+		private void expire() {
+			if (!state.compareAndSet(WAITING, EXPIRED)) return;
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				log.warn("[Server] Exception in timer task", e);
+			}
+		}
+	}
+
+	/**
+	 * The timeouts of one slot of the wheel, a doubly linked list so removing is O(1)
+	 */
+	private static final class Bucket {
+
+		private Timeout head, tail;
+
+		void add(Timeout timeout) {
+			timeout.bucket = this;
+			if (head == null) head = tail = timeout;
+			else {
+				tail.next = timeout;
+				timeout.prev = tail;
+				tail = timeout;
+			}
+		}
+
+		void remove(Timeout timeout) {
+			if (timeout.prev != null) timeout.prev.next = timeout.next;
+			else head = timeout.next;
+			if (timeout.next != null) timeout.next.prev = timeout.prev;
+			else tail = timeout.prev;
+			timeout.prev = timeout.next = null;
+			timeout.bucket = null;
+		}
+
+		/**
+		 * Expires the timeouts due in this turn of the wheel
+		 */
+		void expire() {
+			Timeout timeout = head;
+			while (timeout != null) {
+				Timeout next = timeout.next;
+				if (timeout.rounds <= 0) {
+					remove(timeout);
+					timeout.expire();
+				} else if (timeout.isCancelled()) {
+					remove(timeout);
+				} else {
+					timeout.rounds--;
+				}
+				timeout = next;
+			}
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package de.cyklon.monopoly.server;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves games from busy event loops to idle ones, used with {@link GameScheduling#EVENT_LOOP}.
+ *
+ * <p> Every interval the balancer measures how busy each loop was and how many messages each game
+ * processed. If the busiest loop is hot and clearly busier than the most idle one, the game that
+ * best evens out the difference moves to the idle loop, together with its players. At most one game
+ * moves per interval, so games don't jump back and forth. The balancer runs on the first loop. </p>
+ */
+@Slf4j
+final class LoopBalancer implements Runnable {
+
+	/**
+	 * Loops busier than this give away games
+	 */
+	private static final double HOT = 0.75;
+	/**
+	 * The minimum difference between the busiest and the most idle loop
+	 */
+	private static final double MARGIN = 0.2;
+
+	private final GameRegistry games;
+	private final List<EventLoop> loops;
+	private final long interval;
+	private final long[] busy;
+	private Map<UUID, Long> processed = new HashMap<>();
+	private long time;
+
+	/**
+	 * The loop that was most idle during the last interval, new games start there
+	 */
+	private volatile EventLoop idlest;
+
+	LoopBalancer(GameRegistry games, List<EventLoop> loops, long interval) {
+		this.games = games;
+		this.loops = loops;
+		this.interval = interval;
+		this.busy = new long[loops.size()];
+		this.idlest = loops.get(0);
+	}
+
+	void start() {
+		time = System.nanoTime();
+		for (int i = 0; i < busy.length; i++) busy[i] = loops.get(i).getBusyNanos();
+		loops.get(0).schedule(this, interval, TimeUnit.NANOSECONDS);
+	}
+
+	EventLoop getIdlest() {
+		return idlest;
+	}
+
+	@Override
+	public void run() {
+		try {
+			balance();
+		} finally {
+			loops.get(0).schedule(this, interval, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private void balance() {
+		long now = System.nanoTime();
+		double elapsed = now - time;
+		time = now;
+		int hot = 0, idle = 0;
+		double[] load = new double[busy.length];
+		for (int i = 0; i < busy.length; i++) {
+			long total = loops.get(i).getBusyNanos();
+			load[i] = (total - busy[i]) / elapsed;
+			busy[i] = total;
+			if (load[i] > load[hot]) hot = i;
+			if (load[i] < load[idle]) idle = i;
+		}
+		idlest = loops.get(idle);
+
+		//messages per game during the interval
+		EventLoop hotLoop = loops.get(hot);
+		Map<UUID, Long> last = processed;
+		processed = new HashMap<>();
+		List<GameSession> candidates = new ArrayList<>();
+		Map<GameSession, Long> rates = new HashMap<>();
+		long total = 0;
+		for (GameSession game : games.all()) {
+			long count = game.getProcessed();
+			processed.put(game.getId(), count);
+			if (game.getExecutor() != hotLoop) continue;
+			long rate = count - last.getOrDefault(game.getId(), count);
+			candidates.add(game);
+			rates.put(game, rate);
+			total += rate;
+		}
+		if (load[hot] <= HOT || load[hot] - load[idle] <= MARGIN || total == 0) return;
+
+		//the share of the hot loop's messages that should move to even out the loops
+		double share = (load[hot] - load[idle]) / 2 / load[hot] * total;
+		GameSession best = null;
+		long bestRate = 0;
+		for (GameSession game : candidates) {
+			long rate = rates.get(game);
+			if (rate > bestRate && rate <= share) {
+				best = game;
+				bestRate = rate;
+			}
+		}
+		if (best == null) return;
+		log.debug("[Server] Moving game %s from %s (%.0f%%) to %s (%.0f%%)".formatted(best.getId(),
+				hotLoop.getName(), load[hot] * 100, idlest.getName(), load[idle] * 100));
+		best.moveTo(idlest);
+	}
+}
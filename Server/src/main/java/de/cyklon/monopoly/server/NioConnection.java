@@ -0,0 +1,241 @@
+package de.cyklon.monopoly.server;
+
+import de.cyklon.monopoly.protocol.FrameDecoder;
+import de.cyklon.monopoly.protocol.io.ByteArrayPool;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A non blocking channel served by an {@link EventLoop}.
+ *
+ * <p> Reads and writes happen on the loop thread only. Frames queued by other threads
+ * are flushed by the loop, partial writes wait for the channel to become writable. </p>
+ *
+ * <p> The connection can move to another loop. The old loop cancels its key and hands
+ * the connection, including the state of the decoder and a partially written frame,
+ * to the new loop, which registers the channel again. Tasks that still reach the old
+ * loop are passed on, so the connection is never touched by two threads. </p>
+ */
+@Slf4j
+final class NioConnection implements Connection, EventLoop.Selectable {
+
+	/**
+	 * Reads per readiness, so one busy client can't starve the others of its loop
+	 */
+	private static final int MAX_READS = 16;
+
+	private final Server server;
+	private volatile EventLoop loop;
+	private final SocketChannel channel;
+	private final AtomicBoolean flushScheduled = new AtomicBoolean();
+	private final FrameBatcher batcher;
+	private final long flushDelay;
+	/**
+	 * The frame that wasn't written completely
+	 */
+	private ByteBuffer pending;
+
+	private ClientHandler client;
+	private FrameDecoder decoder;
+	private SelectionKey key;
+	/**
+	 * Reading stopped because of the rate limit
+	 */
+	private boolean paused;
+
+	NioConnection(Server server, EventLoop loop, SocketChannel channel) {
+		this.server = server;
+		this.loop = loop;
+		this.channel = channel;
+		this.batcher = new FrameBatcher(server.getConfig().getMaxFrameSize());
+		this.flushDelay = server.getConfig().getFlushDelay().toNanos();
+	}
+
+	@Override
+	public void start(ClientHandler client) {
+		loop.execute(() -> {
+			this.client = client;
+			this.decoder = new FrameDecoder(frame -> this.client.receive(this, frame), server.getConfig().getMaxFrameSize(), ByteArrayPool.shared(), server.getFrameStats());
+			register();
+		});
+	}
+
+	private void register() {
+		if (!channel.isOpen()) return;
+		try {
+			key = loop.register(channel, readOps(), this);
+		} catch (CancelledKeyException e) {
+			//moved back before this loop released the old key, retry after its next select
+			loop.schedule(this::register, 0, TimeUnit.NANOSECONDS);
+			return;
+		} catch (IOException e) {
+			if (isOpen()) log.warn("[Client %s] Failed to register channel".formatted(client.getId()), e);
+			client.connectionLost(this);
+			return;
+		}
+		flushTask();
+	}
+
+	@Override
+	public void rebind(ClientHandler client) {
+		this.client = client;
+	}
+
+	@Override
+	public EventLoop getEventLoop() {
+		return loop;
+	}
+
+	@Override
+	public void moveTo(EventLoop target) {
+		EventLoop current = loop;
+		if (current == target) return;
+		current.execute(() -> {
+			if (loop != current) {
+				//moved concurrently, ask the loop that owns the connection now
+				moveTo(target);
+				return;
+			}
+			if (loop == target) return;
+			if (key != null) key.cancel();
+			key = null;
+			loop = target;
+			target.execute(this::register);
+		});
+	}
+
+	@Override
+	public void ready(SelectionKey key) {
+		try {
+			if (key.isWritable()) flush(client.getOutbound());
+			if (key.isValid() && key.isReadable()) read();
+		} catch (StreamCorruptedException e) {
+			log.warn("[Client %s] Rejected frame: %s".formatted(client.getId(), e.getMessage()));
+			client.close();
+		} catch (IOException e) {
+			if (isOpen()) log.error("[Client %s] Exception on channel".formatted(client.getId()), e);
+			client.connectionLost(this);
+		}
+	}
+
+	private void read() throws IOException {
+		ByteBuffer buffer = loop.readBuffer();
+		for (int i = 0; i < MAX_READS && client.isConnected() && !paused; i++) {
+			buffer.clear();
+			int read = channel.read(buffer);
+
+			//disconnected
+			if (read == -1) {
+				client.connectionLost(this);
+				return;
+			}
+			if (read == 0) return;
+			buffer.flip();
+			decoder.decode(buffer);
+		}
+	}
+
+	private int readOps() {
+		return paused ? 0 : SelectionKey.OP_READ;
+	}
+
+	@Override
+	public boolean pause(long nanos) {
+		paused = true;
+		if (key != null && key.isValid()) key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+		loop.schedule(this::resumeReading, nanos, TimeUnit.NANOSECONDS);
+		return false;
+	}
+
+	private void resumeReading() {
+		if (!loop.inEventLoop()) {
+			//the connection moved to another loop
+			loop.execute(this::resumeReading);
+			return;
+		}
+		if (!channel.isOpen()) return;
+		paused = false;
+		client.resume(this);
+		if (!paused && key != null && key.isValid()) key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+	}
+
+	@Override
+	public void flush() {
+		if (!flushScheduled.compareAndSet(false, true)) return;
+		if (flushDelay > 0) loop.schedule(this::flushTask, flushDelay, TimeUnit.NANOSECONDS);
+		else loop.execute(this::flushTask);
+	}
+
+	private void flushTask() {
+		if (!loop.inEventLoop()) {
+			//the connection moved to another loop
+			loop.execute(this::flushTask);
+			return;
+		}
+		flushScheduled.set(false);
+		if (key == null || !key.isValid()) return;
+		try {
+			flush(client.getOutbound());
+		} catch (CancelledKeyException ignored) {
+			//closed by another thread
+		} catch (IOException e) {
+			if (isOpen()) log.warn("[Client %s] Exception while sending".formatted(client.getId()), e);
+			client.connectionLost(this);
+		}
+	}
+
+	/**
+	 * Writes the queued frames, until the queue is empty or the socket is full
+	 */
+	private void flush(OutboundQueue queue) throws IOException {
+		for (;;) {
+			if (pending == null && (pending = batcher.next(queue, this)) == null) {
+				key.interestOps(readOps());
+				return;
+			}
+			channel.write(pending);
+			if (pending.hasRemaining()) {
+				key.interestOps(readOps() | SelectionKey.OP_WRITE);
+				return;
+			}
+			pending = null;
+		}
+	}
+
+	@Override
+	public SocketAddress getRemoteAddress() {
+		try {
+			return channel.getRemoteAddress();
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public boolean isOpen() {
+		return channel.isOpen();
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+		release();
+	}
+
+	private void release() {
+		if (!loop.inEventLoop()) {
+			loop.execute(this::release);
+			return;
+		}
+		if (decoder != null) decoder.release();
+	}
+}
@@ -0,0 +1,96 @@
+package de.cyklon.monopoly.server;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+
+/**
+ * Serves all connections with a fixed amount of {@link EventLoop event loops}.
+ * The first loop also accepts the connections, which are assigned to the loops round robin.
+ */
+@Slf4j
+final class NioTransport implements Transport, EventLoop.Selectable {
+
+	private static final int BACKLOG = 1024;
+
+	private final Server server;
+	private final ServerSocketChannel channel;
+	private final EventLoop[] loops;
+	private int next;
+
+	NioTransport(Server server, int port, int eventLoops) throws IOException {
+		if (eventLoops <= 0) throw new IllegalArgumentException("eventLoops must be positive: " + eventLoops);
+		this.server = server;
+		this.channel = ServerSocketChannel.open();
+		this.loops = new EventLoop[eventLoops];
+		try {
+			channel.bind(new InetSocketAddress(port), BACKLOG);
+			channel.configureBlocking(false);
+			for (int i = 0; i < loops.length; i++) loops[i] = new EventLoop("Event Loop " + i);
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+	}
+
+	@Override
+	public void start() {
+		for (EventLoop loop : loops) loop.start();
+		EventLoop acceptor = loops[0];
+		acceptor.execute(() -> {
+			try {
+				acceptor.register(channel, SelectionKey.OP_ACCEPT, this);
+			} catch (IOException e) {
+				log.error("[Server] Failed to listen for connections", e);
+			}
+		});
+	}
+
+	@Override
+	public void ready(SelectionKey key) {
+		while (server.isRunning()) {
+			SocketChannel socket;
+			try {
+				socket = channel.accept();
+			} catch (IOException e) {
+				log.warn("[Server] Exception while listening for connections", e);
+				return;
+			}
+			if (socket == null) return;
+
+			EventLoop loop = loops[next];
+			next = (next + 1) % loops.length;
+			try {
+				log.debug("[Server] initializing Client %s".formatted(socket.getRemoteAddress()));
+				socket.configureBlocking(false);
+				socket.socket().setTcpNoDelay(true);
+				NioConnection connection = new NioConnection(server, loop, socket);
+				server.connect(connection);
+			} catch (IOException e) {
+				log.warn("[Server] Exception while connecting client", e);
+				try {
+					socket.close();
+				} catch (IOException ignored) {
+				}
+			}
+		}
+	}
+
+	@Override
+	public List<EventLoop> getEventLoops() {
+		return List.of(loops);
+	}
+
+	@Override
+	public void close() throws IOException {
+		for (EventLoop loop : loops) {
+			if (loop != null) loop.close();
+		}
+		channel.close();
+	}
+}
@@ -0,0 +1,61 @@
+package de.cyklon.monopoly.server;
+
+import de.cyklon.monopoly.protocol.Packet;
+import de.cyklon.monopoly.protocol.io.BitBuffer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An encoded frame waiting in an {@link OutboundQueue}.
+ *
+ * @param data the length prefix followed by the payload from index zero, never modified after the frame was created.
+ *             The array may be longer than the frame. Broadcast frames are queued for many clients,
+ *             each of them writes through its own view of the array
+ * @param length the length of the frame, including the length prefix
+ * @param type the class of the packet, or {@code null} if the frame wasn't created from a packet
+ * @param droppable whether the frame may be dropped, see {@link Packet#isDroppable()}
+ * @param coalesceKey the key of the frame, see {@link Packet#getCoalesceKey()}
+ * @param replayable whether the frame is sent again when the session is resumed, see {@link Packet#isReplayable()}
+ */
+record OutboundFrame(byte[] data, int length, Class<?> type, boolean droppable, Object coalesceKey, boolean replayable) {
+
+	/**
+	 * The initial capacity of the writer, in bits. The frame keeps the array of the writer,
+	 * so it is small enough for most packets without wasting much
+	 */
+	private static final int INITIAL_CAPACITY = 64 * Byte.SIZE;
+
+	/**
+	 * Encodes the packet behind room for the length prefix, which is filled in afterwards.
+	 * The frame takes the array of the writer, nothing is copied
+	 */
+	static OutboundFrame of(Packet packet) {
+		BitBuffer buffer = BitBuffer.growable(INITIAL_CAPACITY);
+		buffer.putInt(0);
+		packet.writeTo(buffer);
+		//growable buffers start at index zero of their array
+		ByteBuffer frame = buffer.toByteBuffer();
+		frame.putInt(0, frame.remaining() - Integer.BYTES);
+		return new OutboundFrame(frame.array(), frame.remaining(), packet.getClass(), packet.isDroppable(), packet.getCoalesceKey(), packet.isReplayable());
+	}
+
+	/**
+	 * The payload belongs to the caller, so it is copied behind the length prefix
+	 */
+	static OutboundFrame of(byte[] payload) {
+		byte[] data = new byte[Integer.BYTES + payload.length];
+		ByteBuffer.wrap(data).putInt(payload.length).put(payload);
+		return new OutboundFrame(data, data.length, null, false, null, true);
+	}
+
+	/**
+	 * @return a new view of the frame
+	 */
+	ByteBuffer toByteBuffer() {
+		return ByteBuffer.wrap(data, 0, length);
+	}
+
+	boolean replaces(OutboundFrame frame) {
+		return coalesceKey != null && type == frame.type && coalesceKey.equals(frame.coalesceKey);
+	}
+}
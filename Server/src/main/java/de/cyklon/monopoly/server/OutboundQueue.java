@@ -0,0 +1,290 @@
+package de.cyklon.monopoly.server;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The frames sent to a client that weren't written yet.
+ *
+ * <p> Any thread can queue frames, the connection of the client takes them from its I/O thread.
+ * The queue is bounded by the amount of queued bytes, what happens to frames that don't fit
+ * is decided by the {@link BackpressurePolicy}. </p>
+ *
+ * <p> Only the connection that owns the queue takes frames, a connection that was replaced
+ * stops as soon as the owner changes. The last {@link OutboundFrame#replayable() replayable}
+ * frames taken by the connections are kept in a ring, numbered in the order they were taken.
+ * When a session is resumed, the frames the client didn't receive are put back in front of the queue. </p>
+ */
+public final class OutboundQueue {
+
+	enum Result {
+		QUEUED,
+		COALESCED,
+		DROPPED,
+		/**
+		 * The frame doesn't fit and can't be dropped, the client must be disconnected
+		 */
+		OVERFLOW
+	}
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition flushRequested = lock.newCondition();
+	private final Deque<OutboundFrame> frames = new ArrayDeque<>();
+	private final int maxBytes;
+	private final BackpressurePolicy policy;
+
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+	private volatile int depth;
+	private volatile int bytes;
+	private volatile int maxDepth;
+	private boolean closed;
+	private boolean flush;
+	/**
+	 * The connection taking the frames, {@code null} while the client is detached
+	 */
+	private Object owner;
+	/**
+	 * The last taken replayable frames, {@code null} if sessions can't be resumed
+	 */
+	private final OutboundFrame[] history;
+	/**
+	 * The amount of replayable frames taken, the next frame is stored at {@code taken % history.length}
+	 */
+	private long taken;
+
+	/**
+	 * @param maxBytes the maximum amount of queued bytes
+	 * @param policy what happens to frames that don't fit
+	 * @param historySize how many taken frames are kept to be replayed, 0 to keep none
+	 */
+	OutboundQueue(int maxBytes, BackpressurePolicy policy, int historySize) {
+		this.maxBytes = maxBytes;
+		this.policy = policy;
+		this.history = historySize > 0 ? new OutboundFrame[historySize] : null;
+	}
+
+	Result offer(OutboundFrame frame) {
+		lock.lock();
+		try {
+			if (closed) return Result.DROPPED;
+			if (bytes + frame.length() > maxBytes && !frames.isEmpty()) {
+				if (policy == BackpressurePolicy.DISCONNECT) return Result.OVERFLOW;
+				if (policy == BackpressurePolicy.COALESCE && coalesce(frame)) return Result.COALESCED;
+				if (!frame.droppable()) return Result.OVERFLOW;
+				dropped.increment();
+				return Result.DROPPED;
+			}
+			add(frame);
+			return Result.QUEUED;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private boolean coalesce(OutboundFrame frame) {
+		Iterator<OutboundFrame> it = frames.iterator();
+		while (it.hasNext()) {
+			OutboundFrame queued = it.next();
+			if (frame.replaces(queued)) {
+				it.remove();
+				bytes -= queued.length();
+				add(frame);
+				coalesced.increment();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void add(OutboundFrame frame) {
+		frames.addLast(frame);
+		bytes += frame.length();
+		depth = frames.size();
+		if (depth > maxDepth) maxDepth = depth;
+	}
+
+	/**
+	 * Makes the connection the only one taking frames from now on
+	 * @param owner the connection, {@code null} while no connection should take frames
+	 */
+	void attach(Object owner) {
+		lock.lock();
+		try {
+			this.owner = owner;
+			flushRequested.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Puts the frames the client missed back in front of the queue and attaches the new connection
+	 * @param received the amount of replayable frames the client received
+	 * @param owner the new connection
+	 * @param first a frame to send before the missed frames, it isn't counted
+	 * @return the amount of replayed frames, or -1 if the frames aren't kept anymore
+	 */
+	int resume(long received, Object owner, OutboundFrame first) {
+		lock.lock();
+		try {
+			if (closed || history == null || received > taken || received < Math.max(taken - history.length, 0)) return -1;
+			int replayed = (int) (taken - received);
+			for (long i = taken - 1; i >= received; i--) {
+				OutboundFrame frame = history[(int) (i % history.length)];
+				frames.addFirst(frame);
+				bytes += frame.length();
+			}
+			taken = received;
+			frames.addFirst(first);
+			bytes += first.length();
+			depth = frames.size();
+			this.owner = owner;
+			flush = true;
+			flushRequested.signalAll();
+			return replayed;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Takes frames from the head of the queue, as long as their total length doesn't exceed {@code maxBytes}.
+	 * The first frame is always taken
+	 * @param dst the array to take the frames into, from index zero
+	 * @param maxBytes the maximum total length of the frames
+	 * @param owner the connection taking the frames
+	 * @return the amount of frames taken, 0 if the connection doesn't own the queue
+	 */
+	int drainTo(OutboundFrame[] dst, int maxBytes, Object owner) {
+		lock.lock();
+		try {
+			if (owner != this.owner) return 0;
+			int n = 0;
+			int total = 0;
+			OutboundFrame frame;
+			while (n < dst.length && (frame = frames.peekFirst()) != null) {
+				total += frame.length();
+				if (n > 0 && total > maxBytes) break;
+				dst[n++] = take();
+			}
+			return n;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Wakes up a writer waiting in {@link #awaitFlush(Object, long)}
+	 */
+	void requestFlush() {
+		lock.lock();
+		try {
+			flush = true;
+			flushRequested.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Waits until a flush is requested
+	 * @param owner the connection waiting
+	 * @param nanos how long to wait at most
+	 * @return {@code false} if no flush was requested in time, the queue was closed or the connection doesn't own it anymore
+	 */
+	boolean awaitFlush(Object owner, long nanos) throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			while (!flush && !closed && owner == this.owner && nanos > 0) nanos = flushRequested.awaitNanos(nanos);
+			if (!flush || closed || owner != this.owner) return false;
+			flush = false;
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @param owner the connection asking
+	 * @return {@code true} if a flush was requested and not yet taken by {@link #awaitFlush(Object, long)}
+	 */
+	boolean isFlushRequested(Object owner) {
+		lock.lock();
+		try {
+			return flush && !closed && owner == this.owner;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private OutboundFrame take() {
+		OutboundFrame frame = frames.pollFirst();
+		bytes -= frame.length();
+		depth = frames.size();
+		if (history != null && frame.replayable()) history[(int) (taken++ % history.length)] = frame;
+		return frame;
+	}
+
+	/**
+	 * Discards all frames, later frames are dropped
+	 */
+	void close() {
+		lock.lock();
+		try {
+			closed = true;
+			frames.clear();
+			if (history != null) Arrays.fill(history, null);
+			bytes = 0;
+			depth = 0;
+			flushRequested.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the amount of queued frames
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * @return the amount of queued bytes
+	 */
+	public int getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * @return the highest amount of frames that were queued at once
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * @return the amount of frames dropped because the queue was full
+	 */
+	public long getDropped() {
+		return dropped.sum();
+	}
+
+	/**
+	 * @return the amount of queued frames replaced by a newer frame with the same key
+	 */
+	public long getCoalesced() {
+		return coalesced.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "OutboundQueue[depth=%d, bytes=%d, maxDepth=%d, dropped=%d, coalesced=%d]".formatted(depth, bytes, maxDepth, getDropped(), getCoalesced());
+	}
+}
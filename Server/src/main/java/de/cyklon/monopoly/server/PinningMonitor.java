@@ -0,0 +1,69 @@
+package de.cyklon.monopoly.server;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logs virtual threads that block while pinned to their carrier thread.
+ *
+ * <p> Listens to the {@code jdk.VirtualThreadPinned} event of the flight recorder,
+ * which is emitted if a virtual thread parks inside a monitor or a native frame
+ * for longer than the threshold. </p>
+ */
+@Slf4j
+final class PinningMonitor implements Closeable {
+
+	private static final String EVENT = "jdk.VirtualThreadPinned";
+	private static final int MAX_FRAMES = 8;
+
+	private final RecordingStream stream;
+	private final LongAdder pinned = new LongAdder();
+
+	PinningMonitor(Duration threshold) {
+		this.stream = new RecordingStream();
+		stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+		stream.onEvent(EVENT, this::pinned);
+		stream.startAsync();
+	}
+
+	private void pinned(RecordedEvent event) {
+		pinned.increment();
+		RecordedThread thread = event.getThread();
+		StringBuilder sb = new StringBuilder("[Server] Virtual thread %s was pinned for %d ms"
+				.formatted(name(thread), event.getDuration().toMillis()));
+		RecordedStackTrace stackTrace = event.getStackTrace();
+		if (stackTrace != null) {
+			List<RecordedFrame> frames = stackTrace.getFrames();
+			for (int i = 0; i < Math.min(frames.size(), MAX_FRAMES); i++) {
+				RecordedFrame frame = frames.get(i);
+				sb.append("\n\tat ").append(frame.getMethod().getType().getName()).append('.').append(frame.getMethod().getName())
+						.append(':').append(frame.getLineNumber());
+			}
+		}
+		log.warn(sb.toString());
+	}
+
+	private static String name(RecordedThread thread) {
+		if (thread == null) return "?";
+		String name = thread.getJavaName();
+		return name == null || name.isEmpty() ? "#" + thread.getJavaThreadId() : name;
+	}
+
+	long getPinned() {
+		return pinned.sum();
+	}
+
+	@Override
+	public void close() {
+		stream.close();
+	}
+}
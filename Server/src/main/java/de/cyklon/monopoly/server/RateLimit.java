@@ -0,0 +1,66 @@
+package de.cyklon.monopoly.server;
+
+import de.cyklon.monopoly.protocol.Packet;
+import de.cyklon.monopoly.protocol.packet.PacketBuy;
+import de.cyklon.monopoly.protocol.packet.PacketCreateGame;
+import de.cyklon.monopoly.protocol.packet.PacketJoinGame;
+import de.cyklon.monopoly.protocol.packet.PacketRoll;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+import java.util.Map;
+
+/**
+ * How many packets a client may send, enforced before the packets are decoded.
+ *
+ * <p> Every connection has a budget for all of its packets, and packet types can have
+ * a budget of their own on top of it. A packet is only accepted if both have budget left. </p>
+ */
+@Getter
+@Builder
+public class RateLimit {
+
+	/**
+	 * The budget for all packets of a connection
+	 */
+	@Builder.Default
+	private final Limit connection = new Limit(50, 100);
+
+	/**
+	 * The budgets of single packet types
+	 */
+	@Singular
+	private final Map<Class<? extends Packet>, Limit> packets;
+
+	/**
+	 * What happens to packets over budget
+	 */
+	@Builder.Default
+	private final RateLimitAction action = RateLimitAction.DELAY;
+
+	/**
+	 * @return limits that let every player act far faster than by hand, but stop floods
+	 */
+	public static RateLimit defaults() {
+		return builder()
+				.packet(PacketCreateGame.class, new Limit(1, 3))
+				.packet(PacketJoinGame.class, new Limit(2, 5))
+				.packet(PacketRoll.class, new Limit(5, 10))
+				.packet(PacketBuy.class, new Limit(5, 10))
+				.build();
+	}
+
+	/**
+	 * A token bucket
+	 * @param perSecond how fast the budget refills, in packets per second
+	 * @param burst how many packets can be sent at once after a pause
+	 */
+	public record Limit(double perSecond, int burst) {
+
+		public Limit {
+			if (!(perSecond > 0)) throw new IllegalArgumentException("perSecond must be positive: " + perSecond);
+			if (burst < 1) throw new IllegalArgumentException("burst must be at least 1: " + burst);
+		}
+	}
+}
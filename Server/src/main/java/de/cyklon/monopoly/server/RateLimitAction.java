@@ -0,0 +1,21 @@
+package de.cyklon.monopoly.server;
+
+/**
+ * What happens to a packet received from a client that exceeded its {@link RateLimit}.
+ */
+public enum RateLimitAction {
+
+	/**
+	 * The packet is dropped without being decoded
+	 */
+	DROP,
+	/**
+	 * The connection stops reading until the client has budget again, then the packet is handled.
+	 * The client is slowed down to its rate, no packet is lost
+	 */
+	DELAY,
+	/**
+	 * The client is disconnected
+	 */
+	DISCONNECT
+}
@@ -0,0 +1,72 @@
+package de.cyklon.monopoly.server;
+
+import de.cyklon.monopoly.protocol.Packet;
+import de.cyklon.monopoly.protocol.PacketRegistry;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * The {@link TokenBucket token buckets} of one client, checked by packet id before a packet is decoded.
+ */
+final class RateLimiter {
+
+	/**
+	 * The buckets a {@link RateLimit} needs per client, computed once per server
+	 */
+	static final class Rules {
+
+		@Getter
+		private final RateLimit config;
+		/**
+		 * The index of the bucket of every packet id, -1 if the packet has no budget of its own
+		 */
+		private final int[] slots = new int[1 << PacketRegistry.ID_BITS];
+		private final RateLimit.Limit[] limits;
+
+		Rules(RateLimit config) {
+			this.config = config;
+			Arrays.fill(slots, -1);
+			this.limits = new RateLimit.Limit[config.getPackets().size()];
+			int slot = 0;
+			for (Map.Entry<Class<? extends Packet>, RateLimit.Limit> entry : config.getPackets().entrySet()) {
+				slots[PacketRegistry.getDefault().getId(entry.getKey())] = slot;
+				limits[slot++] = entry.getValue();
+			}
+		}
+	}
+
+	private final Rules rules;
+	private final TokenBucket connection;
+	private final TokenBucket[] packets;
+
+	RateLimiter(Rules rules) {
+		this.rules = rules;
+		this.connection = new TokenBucket(rules.config.getConnection());
+		this.packets = new TokenBucket[rules.limits.length];
+		for (int i = 0; i < packets.length; i++) packets[i] = new TokenBucket(rules.limits[i]);
+	}
+
+	/**
+	 * Takes a token from the connection budget and the budget of the packet type,
+	 * only if both have one
+	 * @param id the packet id
+	 * @return 0 if the packet is accepted, otherwise how long until it would be, in nanoseconds
+	 */
+	long acquire(int id) {
+		long now = System.nanoTime();
+		int slot = rules.slots[id];
+		TokenBucket packet = slot < 0 ? null : packets[slot];
+		long delay = Math.max(connection.delay(now), packet == null ? 0 : packet.delay(now));
+		if (delay > 0) return delay;
+		//only the I/O thread of the client takes tokens, so both are still available
+		if (packet != null) packet.tryAcquire(now);
+		connection.tryAcquire(now);
+		return 0;
+	}
+
+	RateLimitAction getAction() {
+		return rules.config.getAction();
+	}
+}
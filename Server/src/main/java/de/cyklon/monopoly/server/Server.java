@@ -1,47 +1,120 @@
 package de.cyklon.monopoly.server;
 
+import de.cyklon.monopoly.protocol.FrameStats;
+import de.cyklon.monopoly.protocol.packet.PacketResume;
+import de.cyklon.monopoly.protocol.packet.PacketSession;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
 @Slf4j
 public class Server implements Closeable {
 
-	private final ServerSocket server;
+	private static final int TIMER_WHEEL_SIZE = 512;
+
+	private final Transport transport;
+	@Getter
+	private final ServerConfig config;
+	@Getter
+	private final FrameStats frameStats = new FrameStats();
+	@Getter
+	private volatile boolean running = true;
+	private final PinningMonitor pinningMonitor;
+	@Getter(AccessLevel.PACKAGE)
+	private final HashedWheelTimer timer;
+	@Getter(AccessLevel.PACKAGE)
+	private final RateLimiter.Rules rateLimits;
+	private final LongAdder rateLimited = new LongAdder();
+
 	@Getter
-	private boolean running = true;
-
-	private final List<ClientHandler> clients = new ArrayList<>();
-
-	public Server(int port) throws IOException {
-		this.server = new ServerSocket(port);
-
-		while (running) {
-			try {
-				Socket socket = server.accept();
-				try {
-					log.debug("[Server] initializing Client %s".formatted(socket.getInetAddress()));
-					ClientHandler client = new ClientHandler(this, socket);
-					log.info("[Server] Client %s (%s) successfully connected!".formatted(client.getId(), socket.getInetAddress()));
-					clients.add(client);
-				} catch (IOException e) {
-					log.warn("[Server] Exception while connecting client %s".formatted(socket.getInetAddress()), e);
-				}
-			} catch (IOException e) {
-				log.warn("[Server] Exception while listening for connections", e);
-			}
-		}
+	private final ClientRegistry clients = new ClientRegistry();
+	@Getter
+	private final GameRegistry games;
+
+	/**
+	 * @param port the port to listen on
+	 * @param factory creates the game logic of every new game
+	 */
+	public Server(int port, Function<GameServer, GameListener> factory) throws IOException {
+		this(port, ServerConfig.defaults(), factory);
+	}
+
+	/**
+	 * @param port the port to listen on
+	 * @param config the configuration
+	 * @param factory creates the game logic of every new game
+	 */
+	public Server(int port, ServerConfig config, Function<GameServer, GameListener> factory) throws IOException {
+		this.config = config;
+		this.timer = new HashedWheelTimer(config.getTimerTick(), TIMER_WHEEL_SIZE);
+		this.rateLimits = config.getRateLimit() == null ? null : new RateLimiter.Rules(config.getRateLimit());
+		this.transport = switch (config.getTransport()) {
+			case BLOCKING -> new SocketTransport(this, port, Thread.ofPlatform().factory());
+			case VIRTUAL -> new SocketTransport(this, port, Thread.ofVirtual().factory());
+			case NIO -> new NioTransport(this, port, config.getEventLoops());
+		};
+		this.games = new GameRegistry(clients, config, timer, transport.getEventLoops(), factory);
+		this.pinningMonitor = config.getTransport() == TransportType.VIRTUAL && config.getPinningThreshold() != null
+				? new PinningMonitor(config.getPinningThreshold())
+				: null;
+		transport.start();
+		log.info("[Server] Listening on port %s (%s)".formatted(port, config.getTransport()));
+	}
+
+	/**
+	 * Called by the transport for every accepted connection, starts the connection
+	 * and sends the session to the client
+	 * @param connection the new connection
+	 * @return the client of the connection
+	 */
+	ClientHandler connect(Connection connection) {
+		ClientHandler client = new ClientHandler(this, connection);
+		log.info("[Server] Client %s (%s) successfully connected!".formatted(client.getId(), connection.getRemoteAddress()));
+		clients.add(client);
+		connection.start(client);
+		if (config.getResumeGrace() != null) client.send(new PacketSession(client.getId(), client.getToken(), false));
+		return client;
+	}
+
+	/**
+	 * Resumes the session the client asked for, called on the I/O thread of the client.
+	 * If the session can't be resumed, the client keeps its new session and is told so
+	 * @param fresh the client of the new connection
+	 * @param resume the session to resume
+	 */
+	void resume(ClientHandler fresh, PacketResume resume) {
+		ClientHandler session = clients.get(resume.getClientId());
+		if (session != null && session != fresh && session.resumeSession(resume.getToken(), resume.getReceived(), fresh)) return;
+		log.info("[Server] Client %s failed to resume session %s".formatted(fresh.getId(), resume.getClientId()));
+		fresh.send(new PacketSession(fresh.getId(), fresh.getToken(), false));
+	}
+
+	/**
+	 * @return how often a virtual thread pinned its carrier longer than the configured threshold
+	 */
+	public long getPinnedThreads() {
+		return pinningMonitor == null ? 0 : pinningMonitor.getPinned();
+	}
+
+	/**
+	 * @return how many packets exceeded the rate limit of their client
+	 */
+	public long getRateLimited() {
+		return rateLimited.sum();
+	}
+
+	void rateLimited() {
+		rateLimited.increment();
 	}
 
 	public GameServer getServer(UUID gameId) {
-		return null;
+		return games.get(gameId);
 	}
 
 
@@ -49,6 +122,10 @@ public class Server implements Closeable {
 	public void close() throws IOException {
 		if (!running) return;
 		running = false;
-		server.close();
+		transport.close();
+		if (pinningMonitor != null) pinningMonitor.close();
+		for (ClientHandler client : clients.all()) client.close();
+		games.close();
+		timer.close();
 	}
 }
@@ -0,0 +1,126 @@
+package de.cyklon.monopoly.server;
+
+import de.cyklon.monopoly.protocol.FrameDecoder;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+@Builder
+public class ServerConfig {
+
+	/**
+	 * The maximum payload length of a received frame, in bytes.
+	 * Clients sending a longer frame are disconnected before anything is allocated
+	 */
+	@Builder.Default
+	private final int maxFrameSize = FrameDecoder.DEFAULT_MAX_FRAME_SIZE;
+
+	/**
+	 * The maximum amount of bytes queued for a client before the {@link #backpressure} policy applies
+	 */
+	@Builder.Default
+	private final int maxQueuedBytes = 256 * 1024;
+
+	/**
+	 * What happens to packets sent to a client that can't keep up
+	 */
+	@Builder.Default
+	private final BackpressurePolicy backpressure = BackpressurePolicy.COALESCE;
+
+	/**
+	 * How long a connection waits for more packets before it writes the queued ones as one frame.
+	 * Packets sent while the client is {@link ClientHandler#cork() corked} are always written together
+	 */
+	@Builder.Default
+	private final Duration flushDelay = Duration.ZERO;
+
+	/**
+	 * The amount of worker threads running the games, one per core by default
+	 */
+	@Builder.Default
+	private final int gameThreads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * How many packets a client may send, {@code null} disables rate limiting
+	 */
+	@Builder.Default
+	private final RateLimit rateLimit = RateLimit.defaults();
+
+	/**
+	 * The precision of the server timer, which runs heartbeats and turn deadlines
+	 */
+	@Builder.Default
+	private final Duration timerTick = Duration.ofMillis(100);
+
+	/**
+	 * How often clients are pinged, {@code null} disables pings and the {@link #idleTimeout}
+	 */
+	@Builder.Default
+	private final Duration heartbeatInterval = Duration.ofSeconds(15);
+
+	/**
+	 * Clients that send nothing for this long are disconnected, checked at every heartbeat.
+	 * {@code null} keeps idle clients connected
+	 */
+	@Builder.Default
+	private final Duration idleTimeout = Duration.ofSeconds(45);
+
+	/**
+	 * The turn of a player ends on its own after this time, {@code null} lets turns last forever
+	 */
+	@Builder.Default
+	private final Duration turnTimeout = Duration.ofMinutes(2);
+
+	/**
+	 * How long a client in a game waits for a new connection after its connection was lost or timed out.
+	 * A client reconnecting within this time resumes its session and only receives the packets it missed.
+	 * {@code null} disconnects clients right away
+	 */
+	@Builder.Default
+	private final Duration resumeGrace = Duration.ofSeconds(30);
+
+	/**
+	 * The amount of sent packets kept per client to be replayed when its session is resumed.
+	 * Clients that missed more have to join again
+	 */
+	@Builder.Default
+	private final int resumeBuffer = 256;
+
+	/**
+	 * Where games run
+	 */
+	@Builder.Default
+	private final GameScheduling gameScheduling = GameScheduling.POOL;
+
+	/**
+	 * How often the load of the event loops is compared, games of a busy loop are moved
+	 * to an idle one. Only used with {@link GameScheduling#EVENT_LOOP}
+	 */
+	@Builder.Default
+	private final Duration rebalanceInterval = Duration.ofSeconds(1);
+
+	/**
+	 * How connections are accepted and served
+	 */
+	@Builder.Default
+	private final TransportType transport = TransportType.NIO;
+
+	/**
+	 * The amount of event loops of the {@link TransportType#NIO} transport, one per core by default
+	 */
+	@Builder.Default
+	private final int eventLoops = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Virtual threads pinning their carrier longer than this are logged by the {@link TransportType#VIRTUAL} transport,
+	 * {@code null} disables the check
+	 */
+	@Builder.Default
+	private final Duration pinningThreshold = Duration.ofMillis(20);
+
+	public static ServerConfig defaults() {
+		return builder().build();
+	}
+}
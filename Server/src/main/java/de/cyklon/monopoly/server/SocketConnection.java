@@ -0,0 +1,161 @@
+package de.cyklon.monopoly.server;
+
+import de.cyklon.monopoly.protocol.FrameDecoder;
+import de.cyklon.monopoly.protocol.io.ByteArrayPool;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A blocking socket, read by its own thread and written by another one.
+ *
+ * <p> The writer is only started when frames are flushed, and it ends once nothing was flushed
+ * for a while, so idle connections only keep their reader thread. </p>
+ *
+ * <p> The threads may be virtual, so nothing on the read and write paths may block
+ * while holding a monitor, that would pin the carrier thread. The writer waits for
+ * flushes of the {@link OutboundQueue}, which uses a lock instead of {@code synchronized}. </p>
+ */
+@Slf4j
+final class SocketConnection implements Connection {
+
+	/**
+	 * Kept small, so idle connections stay cheap. Longer frames are assembled by the decoder
+	 */
+	private static final int READ_BUFFER_SIZE = 2048;
+	/**
+	 * How long the writer waits for the next flush before it ends, longer than the pauses between game events
+	 */
+	private static final long WRITER_IDLE = TimeUnit.SECONDS.toNanos(5);
+
+	private final Server server;
+	private final Socket socket;
+	private final DataInputStream in;
+	private final DataOutputStream out;
+	private final ThreadFactory threads;
+	private volatile ClientHandler client;
+	/**
+	 * Whether a writer thread is running
+	 */
+	private final AtomicBoolean writing = new AtomicBoolean();
+
+	SocketConnection(Server server, Socket socket, ThreadFactory threads) throws IOException {
+		this.server = server;
+		this.socket = socket;
+		this.threads = threads;
+		this.in = new DataInputStream(socket.getInputStream());
+		this.out = new DataOutputStream(socket.getOutputStream());
+	}
+
+	@Override
+	public void start(ClientHandler client) {
+		this.client = client;
+		Thread reader = threads.newThread(this::read);
+		reader.setName("Client " + client.getId());
+		reader.start();
+		//frames queued before the start are written now
+		if (client.getOutbound().getDepth() > 0) flush();
+	}
+
+	@Override
+	public void rebind(ClientHandler client) {
+		this.client = client;
+	}
+
+	private void read() {
+		FrameDecoder decoder = new FrameDecoder(frame -> client.receive(this, frame), server.getConfig().getMaxFrameSize(), ByteArrayPool.shared(), server.getFrameStats());
+		byte[] chunk = new byte[READ_BUFFER_SIZE];
+		ByteBuffer buffer = ByteBuffer.wrap(chunk);
+		try {
+			while (server.isRunning() && client.isConnected()) {
+				int read = in.read(chunk);
+
+				//disconnected
+				if (read == -1) break;
+				buffer.clear().limit(read);
+				decoder.decode(buffer);
+			}
+			client.connectionLost(this);
+		} catch (StreamCorruptedException e) {
+			log.warn("[Client %s] Rejected frame: %s".formatted(client.getId(), e.getMessage()));
+			client.close();
+		} catch (IOException e) {
+			if (isOpen()) log.error("[Client %s] Exception while waiting for data".formatted(client.getId()), e);
+			client.connectionLost(this);
+		} finally {
+			decoder.release();
+		}
+	}
+
+	private void write() {
+		FrameBatcher batcher = new FrameBatcher(server.getConfig().getMaxFrameSize());
+		long delay = server.getConfig().getFlushDelay().toNanos();
+		try {
+			for (;;) {
+				ClientHandler client = this.client;
+				OutboundQueue queue = client.getOutbound();
+				if (!queue.awaitFlush(this, WRITER_IDLE)) {
+					//the connection resumed another session, continue with its queue
+					if (this.client != client && isOpen()) continue;
+					writing.set(false);
+					//a flush requested before the flag was cleared didn't start a new writer
+					if (queue.isFlushRequested(this) && writing.compareAndSet(false, true)) continue;
+					return;
+				}
+				if (delay > 0) LockSupport.parkNanos(delay);
+				ByteBuffer data;
+				while ((data = batcher.next(queue, this)) != null) {
+					out.write(data.array(), data.arrayOffset() + data.position(), data.remaining());
+				}
+				out.flush();
+			}
+		} catch (IOException e) {
+			if (isOpen()) log.warn("[Client %s] Exception while sending".formatted(client.getId()), e);
+			client.connectionLost(this);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public boolean pause(long nanos) {
+		LockSupport.parkNanos(nanos);
+		return true;
+	}
+
+	@Override
+	public void flush() {
+		ClientHandler client = this.client;
+		client.getOutbound().requestFlush();
+		if (isOpen() && writing.compareAndSet(false, true)) {
+			Thread writer = threads.newThread(this::write);
+			writer.setName("Client " + client.getId() + " Writer");
+			writer.start();
+		}
+	}
+
+	@Override
+	public SocketAddress getRemoteAddress() {
+		return socket.getRemoteSocketAddress();
+	}
+
+	@Override
+	public boolean isOpen() {
+		return !socket.isClosed();
+	}
+
+	@Override
+	public void close() throws IOException {
+		socket.close();
+	}
+}
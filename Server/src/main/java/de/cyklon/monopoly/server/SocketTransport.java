@@ -0,0 +1,57 @@
+package de.cyklon.monopoly.server;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ThreadFactory;
+
+@Slf4j
+final class SocketTransport implements Transport {
+
+	private static final int BACKLOG = 1024;
+
+	private final Server server;
+	private final ServerSocket socket;
+	private final Thread acceptor;
+	private final ThreadFactory threads;
+
+	/**
+	 * @param threads creates the reader thread of every connection
+	 */
+	SocketTransport(Server server, int port, ThreadFactory threads) throws IOException {
+		this.server = server;
+		this.socket = new ServerSocket(port, BACKLOG);
+		this.threads = threads;
+		this.acceptor = new Thread(this::accept, "Server Acceptor");
+	}
+
+	@Override
+	public void start() {
+		acceptor.start();
+	}
+
+	private void accept() {
+		while (server.isRunning()) {
+			try {
+				Socket socket = this.socket.accept();
+				try {
+					log.debug("[Server] initializing Client %s".formatted(socket.getInetAddress()));
+					SocketConnection connection = new SocketConnection(server, socket, threads);
+					server.connect(connection);
+				} catch (IOException e) {
+					log.warn("[Server] Exception while connecting client %s".formatted(socket.getInetAddress()), e);
+					socket.close();
+				}
+			} catch (IOException e) {
+				if (server.isRunning()) log.warn("[Server] Exception while listening for connections", e);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		socket.close();
+	}
+}
@@ -0,0 +1,51 @@
+package de.cyklon.monopoly.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free token bucket, implemented as generic cell rate algorithm.
+ *
+ * <p> Instead of a token count that is refilled over time, the bucket only keeps the time at which
+ * it would be empty again if nothing else arrived. A packet is accepted if that time is at most
+ * {@code burst - 1} intervals in the future, and then moves it one interval further. The refill is
+ * implicit, so there is no timer and one compare-and-set per packet. </p>
+ */
+final class TokenBucket {
+
+	/**
+	 * Nanoseconds per token
+	 */
+	private final long interval;
+	/**
+	 * How far the theoretical arrival time may be ahead of now
+	 */
+	private final long tolerance;
+	private final AtomicLong arrival;
+
+	TokenBucket(RateLimit.Limit limit) {
+		this.interval = Math.max((long) (1_000_000_000 / limit.perSecond()), 1);
+		this.tolerance = interval * (limit.burst() - 1);
+		this.arrival = new AtomicLong(System.nanoTime());
+	}
+
+	/**
+	 * @param now the current {@link System#nanoTime()}
+	 * @return how long until a token is available, in nanoseconds. 0 if one is available now
+	 */
+	long delay(long now) {
+		return Math.max(arrival.get() - tolerance - now, 0);
+	}
+
+	/**
+	 * Takes a token if one is available
+	 * @param now the current {@link System#nanoTime()}
+	 * @return {@code true} if a token was taken
+	 */
+	boolean tryAcquire(long now) {
+		for (;;) {
+			long current = arrival.get();
+			if (current - now > tolerance) return false;
+			if (arrival.compareAndSet(current, (current - now > 0 ? current : now) + interval)) return true;
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package de.cyklon.monopoly.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Accepts the connections of a {@link Server}, every accepted connection is
+ * handed to {@link Server#connect(Connection)}.
+ */
+interface Transport extends Closeable {
+
+	void start() throws IOException;
+
+	/**
+	 * @return the event loops serving the connections, empty if the transport has none
+	 */
+	default List<EventLoop> getEventLoops() {
+		return List.of();
+	}
+}
@@ -0,0 +1,18 @@
+package de.cyklon.monopoly.server;
+
+public enum TransportType {
+
+	/**
+	 * Blocking sockets, every connection is read by its own thread
+	 */
+	BLOCKING,
+	/**
+	 * Blocking sockets, every connection is read by its own virtual thread.
+	 * Idle connections only cost their memory, not a platform thread
+	 */
+	VIRTUAL,
+	/**
+	 * Non blocking channels, all connections are served by a fixed amount of event loops
+	 */
+	NIO
+}